@@ -0,0 +1,116 @@
+/***************************************************************************
+ * ClassName: AllocationCheck
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Confirms that the pooled mode of NetworkSimulator does not
+ * allocate per event. It drives the simulator with a stop-and-wait sender
+ * that keeps all of its state in preallocated packets, so whatever is
+ * allocated comes from the simulator itself. Bytes allocated by this thread
+ * (ThreadMXBean) are measured over the second half of the run, after the
+ * pools have warmed up, and reported per dispatched event, once for the
+ * default mode and once for pooled mode.
+ *
+ *     java AllocationCheck [messages]
+ ****************************************************************************/
+
+import java.lang.management.ManagementFactory;
+
+public class AllocationCheck {
+    public static void main(String[] argv) {
+        int messages = argv.length > 0 ? Integer.parseInt(argv[0]) : 200000;
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadAllocatedMemorySupported()) {
+            System.out.println("Thread allocation accounting is not supported by this JVM");
+            return;
+        }
+        bean.setThreadAllocatedMemoryEnabled(true);
+
+        for (String mode : new String[]{"false", "true"}) {
+            System.setProperty("pooled", mode);
+            StopAndWait sim = new StopAndWait(messages, bean);
+            sim.runSimulator();
+            System.out.printf("pooled=%s: %.3f bytes per event over %d events%n",
+                    mode, sim.bytesPerEvent(), sim.measuredEvents());
+        }
+    }
+
+    /**
+     * Minimal alternating-bit sender and receiver. Messages that arrive
+     * while a packet is outstanding are dropped, which is fine for
+     * counting allocations.
+     */
+    private static class StopAndWait extends NetworkSimulator {
+        private final int warmup;
+        private final com.sun.management.ThreadMXBean bean;
+        private final long threadId;
+        private final Packet[] data;    // per alternating bit, packets do not change
+        private final Packet[] ack;
+        private int bit;
+        private boolean waiting;
+        private int nOutput;
+        private long nEvents;
+        private long startBytes;
+        private long startEvents;
+        private long endBytes;
+
+        StopAndWait(int messages, com.sun.management.ThreadMXBean bean) {
+            super(messages, 0.1, 0.0, 10, 0, 1);
+            this.warmup = messages / 2;
+            this.bean = bean;
+            this.threadId = Thread.currentThread().getId();
+            // nothing is delivered to layer 5, so the payload is left out
+            this.data = new Packet[]{new Packet(0, 0, 0), new Packet(1, 0, 0)};
+            this.ack = new Packet[]{new Packet(0, 0, 0), new Packet(0, 1, 0)};
+        }
+
+        protected void aOutput(Message message) {
+            ++nEvents;
+            if (++nOutput == warmup) {
+                startEvents = nEvents;
+                startBytes = bean.getThreadAllocatedBytes(threadId);
+            }
+            if (waiting) return;
+            toLayer3(A, data[bit]);
+            startTimer(A, 30);
+            waiting = true;
+        }
+
+        protected void aInput(Packet packet) {
+            ++nEvents;
+            if (!waiting) return;
+            stopTimer(A);
+            bit = 1 - bit;
+            waiting = false;
+        }
+
+        protected void aTimerInterrupt() {
+            ++nEvents;
+            toLayer3(A, data[bit]);
+            startTimer(A, 30);
+        }
+
+        protected void aInit() {
+        }
+
+        protected void bInput(Packet packet) {
+            ++nEvents;
+            toLayer3(B, ack[packet.getSeqnum() & 1]);
+        }
+
+        protected void bInit() {
+        }
+
+        protected void Simulation_done() {
+            endBytes = bean.getThreadAllocatedBytes(threadId);
+        }
+
+        long measuredEvents() {
+            return nEvents - startEvents;
+        }
+
+        double bytesPerEvent() {
+            return (double) (endBytes - startBytes) / measuredEvents();
+        }
+    }
+}
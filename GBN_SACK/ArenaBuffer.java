@@ -0,0 +1,134 @@
+/***************************************************************************
+ * ClassName: ArenaBuffer
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Buffer of packets that keeps them in a PacketArena, for the
+ * sender in arena mode. It holds an int handle per packet instead of the
+ * Packet, and a reference to each packet while it is buffered: packets
+ * dropped by set, clear, resize or truncate are released. get decodes the
+ * packet, so the Packet returned is a new object every time.
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+public class ArenaBuffer extends Buffer<Packet> {
+    private final PacketArena arena;
+    private int[] handles;
+    private int size;
+
+    public ArenaBuffer(int capacity, PacketArena arena) {
+        super(capacity);
+        this.arena = arena;
+        this.handles = new int[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * Copy of another buffer, sharing its packets
+     */
+    public ArenaBuffer(ArenaBuffer other) {
+        super(other.getCapacity());
+        this.arena = other.arena;
+        this.handles = other.handles.clone();
+        this.size = other.size;
+        for (int i = 0; i < size; i++) {
+            arena.retain(handles[i]);
+        }
+    }
+
+    /**
+     * Buffer read back from a checkpoint written by writeTo, in the
+     * format of Buffer
+     */
+    public ArenaBuffer(ByteBuffer in, PacketArena arena) {
+        this(in.getInt(), arena);
+        int n = in.getInt();
+        for (int i = 0; i < n; i++) {
+            handles[size++] = arena.allocate(Packet.decode(in));
+        }
+    }
+
+    @Override
+    public void writeTo(ByteBuffer out, BiConsumer<ByteBuffer, Packet> element) {
+        out.putInt(getCapacity()).putInt(size);
+        for (int i = 0; i < size; i++) {
+            element.accept(out, arena.get(handles[i]));
+        }
+    }
+
+    @Override
+    public boolean add(Packet p) {
+        if (isFull()) {
+            return false;
+        }
+        handles[size++] = arena.adopt(p);
+        return true;
+    }
+
+    @Override
+    public Packet get(int index) {
+        return arena.get(handle(index));
+    }
+
+    @Override
+    public void set(int index, Packet element) {
+        int old = handle(index);
+        handles[index] = arena.adopt(element);
+        arena.release(old);
+    }
+
+    /**
+     * Sequence number of the packet at index, without decoding it
+     */
+    public int getSeqnum(int index) {
+        return arena.seqnum(handle(index));
+    }
+
+    @Override
+    public boolean isFull() {
+        return size == getCapacity();
+    }
+
+    @Override
+    public void clear() {
+        truncate(0, 0);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int resize(int base) {
+        return truncate(Math.min(base, getCapacity()), getCapacity());
+    }
+
+    @Override
+    public int truncate(int base, int end) {
+        if (base > end) {
+            base = end;
+        }
+        if (base < 0 || end > size) {
+            throw new IllegalArgumentException("Access illegal index of buff");
+        }
+        for (int i = 0; i < size; i++) {
+            if (i < base || i >= end) {
+                arena.release(handles[i]);
+            }
+        }
+        System.arraycopy(handles, base, handles, 0, end - base);
+        Arrays.fill(handles, end - base, handles.length, PacketArena.NIL);
+        size = end - base;
+        return size;
+    }
+
+    private int handle(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("Access illegal index of buff");
+        }
+        return handles[index];
+    }
+}
@@ -0,0 +1,42 @@
+/***************************************************************************
+ * ClassName: BernoulliChannel
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Independent loss: each packet is lost with the same
+ * probability, whatever happened to the ones before. One draw per packet,
+ * the same as the simulator always made.
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+
+public class BernoulliChannel implements ChannelModel {
+    private final double loss;
+
+    public BernoulliChannel(double loss) {
+        this.loss = loss;
+    }
+
+    public boolean lost(RandomStreams r) {
+        return r.nextDouble(RandomStreams.LOSS) < loss;
+    }
+
+    // No state to copy
+    public ChannelModel copy() {
+        return this;
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.put(BERNOULLI);
+    }
+
+    public void readFrom(ByteBuffer in) {
+        if (in.get() != BERNOULLI) {
+            throw new IllegalStateException("Saved with another channel model than bernoulli");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "bernoulli " + loss;
+    }
+}
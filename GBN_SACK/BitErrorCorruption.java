@@ -0,0 +1,143 @@
+/***************************************************************************
+ * ClassName: BitErrorCorruption
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Bit errors on the wire (-Dcorruption=ber:rate). The packet
+ * is encoded as it would be sent, see Packet.encode, and every bit of it
+ * flips with probability rate, independently. The gaps between flipped
+ * bits are drawn from a geometric distribution, so a packet without errors
+ * costs one draw. Longer packets are corrupted more often, and bits may
+ * flip anywhere, including several at once, in the checksum or in the
+ * sack. Only the payload and sack lengths are spared: the link delivers
+ * whole frames, so they are known from the frame's length.
+ *
+ * The report counts the corrupted packets ChecksumUtil fails to notice,
+ * and those a CRC16 of the same bytes in place of the checksum would have
+ * missed. The legacy generator draws numbers 1/32767 apart, which is too
+ * coarse for rates much below 1e-5; use -Drandom=xoshiro for those.
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+
+public class BitErrorCorruption implements CorruptionModel {
+    private static final int CHECKSUM = Packet.CHECKSUM;
+    private static final int LENGTHS = Packet.LENGTHS;
+
+    private final double rate;
+    private final double logGood;               // log(1 - rate)
+    private ByteBuffer wire = ByteBuffer.allocate(256);
+
+    // statistics
+    private long packets;
+    private long corrupted;
+    private long flipped;
+    private long missedByChecksum;
+    private long missedByCRC;
+
+    public BitErrorCorruption(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Bit error rate must be in [0, 1]: " + rate);
+        }
+        this.rate = rate;
+        this.logGood = Math.log(1 - rate);
+    }
+
+    /**
+     * Parse the "rate" after "ber:"
+     */
+    public static BitErrorCorruption parse(String args) {
+        if (args == null || args.isEmpty()) {
+            throw new IllegalArgumentException("Expected ber:rate");
+        }
+        return new BitErrorCorruption(Double.parseDouble(args.trim()));
+    }
+
+    public Packet corrupt(Packet packet, RandomStreams r) {
+        packets++;
+        int size = packet.size();
+        long bits = 8L * (size - 4);    // all but the lengths
+        long at = gap(r);
+        if (at >= bits) {
+            return packet;
+        }
+
+        if (wire.capacity() < size) {
+            wire = ByteBuffer.allocate(Math.max(size, 2 * wire.capacity()));
+        }
+        wire.clear();
+        packet.encode(wire);
+        byte[] bytes = wire.array();
+        int crc = crc(bytes, size);
+        int sent = wire.getShort(CHECKSUM + 2) & 0xFFFF;
+        boolean data = false;       // a bit flipped outside the checksum
+        while (at < bits) {
+            int i = (int) (at >> 3);
+            i += i < LENGTHS ? 0 : 4;
+            bytes[i] ^= 1 << (7 - (int) (at & 7));
+            data |= i < CHECKSUM || i >= CHECKSUM + 4;
+            flipped++;
+            at += 1 + gap(r);
+        }
+        corrupted++;
+
+        if (!ChecksumUtil.isCorrupted(wire, 0)) {
+            missedByChecksum++;
+        }
+        // a CRC16 in the lower half of the checksum, flips in its upper half are harmless
+        int received = wire.getShort(CHECKSUM + 2) & 0xFFFF;
+        if (data && crc(bytes, size) == (crc ^ sent ^ received)) {
+            missedByCRC++;
+        }
+        wire.flip();
+        return Packet.decode(wire);
+    }
+
+    // Error-free bits before the next flipped one
+    private long gap(RandomStreams r) {
+        if (rate == 0) {
+            return Long.MAX_VALUE;
+        }
+        double g = Math.floor(Math.log(1 - r.nextDouble(RandomStreams.CORRUPTION)) / logGood);
+        return g >= Long.MAX_VALUE / 2 ? Long.MAX_VALUE / 2 : (long) g;
+    }
+
+    // CRC16 of everything but the checksum
+    private static int crc(byte[] wire, int size) {
+        int crc = CRC16.crc16(0, wire, 0, CHECKSUM);
+        return CRC16.crc16(crc, wire, CHECKSUM + 4, size - CHECKSUM - 4);
+    }
+
+    public CorruptionModel copy() {
+        BitErrorCorruption c = new BitErrorCorruption(rate);
+        c.packets = packets;
+        c.corrupted = corrupted;
+        c.flipped = flipped;
+        c.missedByChecksum = missedByChecksum;
+        c.missedByCRC = missedByCRC;
+        return c;
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.put(BIT_ERRORS);
+        out.putLong(packets).putLong(corrupted).putLong(flipped)
+                .putLong(missedByChecksum).putLong(missedByCRC);
+    }
+
+    public void readFrom(ByteBuffer in) {
+        if (in.get() != BIT_ERRORS) {
+            throw new IllegalStateException("Saved with another corruption model than ber");
+        }
+        packets = in.getLong();
+        corrupted = in.getLong();
+        flipped = in.getLong();
+        missedByChecksum = in.getLong();
+        missedByCRC = in.getLong();
+    }
+
+    public String report() {
+        return String.format("bit error rate %g: %d packets, %d corrupted (%.2f%%), " +
+                        "%d bits flipped, %d not detected by ChecksumUtil, %d would not be by CRC16",
+                rate, packets, corrupted, packets == 0 ? 0.0 : 100.0 * corrupted / packets,
+                flipped, missedByChecksum, missedByCRC);
+    }
+}
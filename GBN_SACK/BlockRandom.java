@@ -0,0 +1,145 @@
+/***************************************************************************
+ * ClassName: BlockRandom
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: RandomStreams that draws the numbers of each stream a
+ * block at a time ahead of use (-Drandom.block=n), so that the loss,
+ * delay and corruption draws of toLayer3 are array reads. With
+ * -Drandom.producer=true the next block of every stream is drawn on a
+ * thread of its own while the current one is used.
+ *
+ * Every stream hands out the same numbers in the same order as the
+ * generator it wraps, so a run is the same as without blocks. Only the
+ * drawing moves. copy, split and writeTo need the generator exactly where
+ * the streams have been used up to, not where the blocks end; it is
+ * found by drawing the used numbers again from where it was last found,
+ * so it costs one draw per number used since the last checkpoint.
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class BlockRandom implements RandomStreams {
+    private final int size;
+    private final RandomStreams ahead;      // draws the blocks, owned by the producer if any
+    private final double[][] blocks;        // block of each stream in use
+    private final int[] next;               // next number of it
+    private final long[] drawn;             // numbers handed out in blocks per stream
+    private final ExecutorService producer; // null to draw blocks when they run out
+    private final Future<double[]>[] coming;    // next block of each stream
+
+    private RandomStreams behind;           // where the streams were last found
+    private final long[] found;             // numbers used per stream at that point
+
+    public BlockRandom(RandomStreams source, int size, boolean background) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("block size must be > 0");
+        }
+        this.size = size;
+        this.behind = source.copy();
+        this.ahead = source;
+        this.blocks = new double[STREAMS][size];
+        this.next = new int[STREAMS];
+        this.drawn = new long[STREAMS];
+        this.found = new long[STREAMS];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Future<double[]>[] coming = new Future[STREAMS];
+        this.coming = coming;
+        if (background) {
+            producer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "random-producer");
+                t.setDaemon(true);
+                return t;
+            });
+            for (int k = 0; k < STREAMS; k++) {
+                int stream = k;
+                coming[k] = producer.submit(() -> fill(stream, new double[size]));
+            }
+        } else {
+            producer = null;
+        }
+        // every block starts out used up
+        for (int k = 0; k < STREAMS; k++) {
+            next[k] = size;
+            drawn[k] = -size;
+        }
+    }
+
+    public double nextDouble(int stream) {
+        if (next[stream] == size) {
+            refill(stream);
+        }
+        return blocks[stream][next[stream]++];
+    }
+
+    private void refill(int stream) {
+        double[] used = blocks[stream];
+        if (producer == null) {
+            fill(stream, used);
+        } else {
+            blocks[stream] = await(coming[stream]);
+            coming[stream] = producer.submit(() -> fill(stream, used));
+        }
+        next[stream] = 0;
+        drawn[stream] += size;
+    }
+
+    private double[] fill(int stream, double[] block) {
+        for (int i = 0; i < block.length; i++) {
+            block[i] = ahead.nextDouble(stream);
+        }
+        return block;
+    }
+
+    private static double[] await(Future<double[]> block) {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while drawing random numbers", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Cannot draw random numbers", e.getCause());
+        }
+    }
+
+    // The wrapped generator as if every number used had been drawn from it
+    private RandomStreams position() {
+        RandomStreams r = behind.copy();
+        for (int k = 0; k < STREAMS; k++) {
+            long used = drawn[k] + next[k];
+            for (long i = found[k]; i < used; i++) {
+                r.nextDouble(k);
+            }
+            found[k] = used;
+        }
+        behind = r.copy();
+        return r;
+    }
+
+    /**
+     * A copy of the wrapped generator, without blocks
+     */
+    public RandomStreams copy() {
+        return position();
+    }
+
+    public RandomStreams split() {
+        return position().split();
+    }
+
+    public void writeTo(ByteBuffer out) {
+        position().writeTo(out);
+    }
+
+    /**
+     * Stop the producer thread
+     */
+    public void close() {
+        if (producer != null) {
+            producer.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/***************************************************************************
+ * ClassName: BottleneckLink
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Link with a bandwidth, a propagation delay and a finite
+ * FIFO queue in front of it. A packet waits for the ones ahead of it,
+ * takes size / bandwidth to be sent and arrives the propagation delay
+ * later, so a window larger than the bandwidth-delay product only fills
+ * the queue. The queue holds at most q packets, the one being sent
+ * included, and drops what does not fit (drop-tail).
+ *
+ * With RED the queue also drops early: it keeps an average of its length,
+ * weighted by w at every arrival and decaying while it is empty. Below
+ * min nothing is dropped, above max everything is, in between a packet
+ * is dropped with a probability rising to p, spread out by the number of
+ * packets since the last drop (Floyd and Jacobson). The RED decisions
+ * draw from the DELAY stream, which this link does not otherwise use.
+ *
+ * Every packet is counted with the length of the queue it found, which
+ * gives the average and largest occupancy in the report.
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+
+public class BottleneckLink implements LinkModel {
+    private final double bandwidth;     // bytes per time unit
+    private final double delay;         // propagation delay
+    private final int capacity;         // packets in the queue at most
+    private final boolean red;
+    private final double minThreshold;
+    private final double maxThreshold;
+    private final double maxP;
+    private final double weight;
+
+    private final double[] departures;  // ring of when queued packets leave
+    private int head;
+    private int count;
+    private double busyUntil;           // when the last queued packet leaves
+    private double service;             // time the last packet took to send
+    private double average;             // RED average queue length
+    private int sinceDrop;              // RED packets since the last drop
+
+    // statistics
+    private long packets;
+    private long dropped;
+    private long early;                 // of dropped, by RED below a full queue
+    private long queued;                // sum of queue lengths found
+    private int maxQueue;
+    private long bytes;
+    private double busy;
+
+    /**
+     * Drop-tail queue
+     */
+    public BottleneckLink(double bandwidth, double delay, int capacity) {
+        this(bandwidth, delay, capacity, false, 0, 0, 0, 0);
+    }
+
+    /**
+     * RED queue
+     */
+    public BottleneckLink(double bandwidth, double delay, int capacity,
+                          double minThreshold, double maxThreshold, double maxP, double weight) {
+        this(bandwidth, delay, capacity, true, minThreshold, maxThreshold, maxP, weight);
+        if (minThreshold < 0 || maxThreshold <= minThreshold || maxP < 0 || maxP > 1 ||
+                weight <= 0 || weight > 1) {
+            throw new IllegalArgumentException("RED needs 0 <= min < max, p in [0, 1] and " +
+                    "w in (0, 1]: min " + minThreshold + ", max " + maxThreshold +
+                    ", p " + maxP + ", w " + weight);
+        }
+    }
+
+    private BottleneckLink(double bandwidth, double delay, int capacity, boolean red,
+                           double minThreshold, double maxThreshold, double maxP, double weight) {
+        if (bandwidth <= 0 || delay < 0 || capacity < 1) {
+            throw new IllegalArgumentException("A bottleneck needs bandwidth > 0, delay >= 0 " +
+                    "and a queue of at least 1 packet: bandwidth " + bandwidth + ", delay " +
+                    delay + ", queue " + capacity);
+        }
+        this.bandwidth = bandwidth;
+        this.delay = delay;
+        this.capacity = capacity;
+        this.red = red;
+        this.minThreshold = minThreshold;
+        this.maxThreshold = maxThreshold;
+        this.maxP = maxP;
+        this.weight = weight;
+        this.departures = new double[capacity];
+    }
+
+    /**
+     * Parse the "b,d,q[,min,max,p,w]" after "bottleneck:" or "red:". A
+     * missing bandwidth, delay or queue is 10 bytes per time unit, 1 and 16
+     * packets. RED defaults to min q/4, max 3q/4, p 0.1 and w 0.002.
+     */
+    public static BottleneckLink parse(String args, boolean red) {
+        String[] a = args == null || args.isEmpty() ? new String[0] : args.split(",");
+        if (a.length > (red ? 7 : 3)) {
+            throw new IllegalArgumentException("Too many link parameters: " + args);
+        }
+        double[] v = new double[]{10, 1, 16, -1, -1, 0.1, 0.002};
+        for (int i = 0; i < a.length; i++) {
+            v[i] = Double.parseDouble(a[i].trim());
+        }
+        int capacity = (int) v[2];
+        if (!red) {
+            return new BottleneckLink(v[0], v[1], capacity);
+        }
+        double min = v[3] < 0 ? capacity / 4.0 : v[3];
+        double max = v[4] < 0 ? 3 * capacity / 4.0 : v[4];
+        return new BottleneckLink(v[0], v[1], capacity, min, max, v[5], v[6]);
+    }
+
+    public double arrival(Packet p, double now, double lastArrival, RandomStreams r) {
+        while (count > 0 && departures[head] <= now) {
+            head = (head + 1) % capacity;
+            count--;
+        }
+        packets++;
+        queued += count;
+        maxQueue = Math.max(maxQueue, count);
+
+        if (red && drop(now, r)) {
+            dropped++;
+            early++;
+            return -1;
+        }
+        if (count == capacity) {
+            dropped++;
+            sinceDrop = 0;
+            return -1;
+        }
+
+        double start = count > 0 ? busyUntil : now;
+        int size = p.size();
+        service = size / bandwidth;
+        busyUntil = start + service;
+        departures[(head + count) % capacity] = busyUntil;
+        count++;
+        bytes += size;
+        busy += service;
+        return busyUntil + delay;
+    }
+
+    // Whether RED drops the packet arriving at now before the queue is full
+    private boolean drop(double now, RandomStreams r) {
+        if (count > 0) {
+            average = (1 - weight) * average + weight * count;
+        } else if (service > 0) {
+            // as if packets the size of the last one had found it empty
+            average *= Math.pow(1 - weight, Math.max(0, now - busyUntil) / service);
+        }
+        if (average < minThreshold || count == capacity) {
+            sinceDrop = 0;
+            return false;
+        }
+        if (average >= maxThreshold) {
+            sinceDrop = 0;
+            return true;
+        }
+        sinceDrop++;
+        double pb = maxP * (average - minThreshold) / (maxThreshold - minThreshold);
+        double pa = sinceDrop * pb >= 1 ? 1 : pb / (1 - sinceDrop * pb);
+        if (r.nextDouble(RandomStreams.DELAY) < pa) {
+            sinceDrop = 0;
+            return true;
+        }
+        return false;
+    }
+
+    public double minDelay() {
+        return delay;
+    }
+
+    public LinkModel copy() {
+        BottleneckLink c = new BottleneckLink(bandwidth, delay, capacity, red,
+                minThreshold, maxThreshold, maxP, weight);
+        System.arraycopy(departures, 0, c.departures, 0, capacity);
+        c.head = head;
+        c.count = count;
+        c.busyUntil = busyUntil;
+        c.service = service;
+        c.average = average;
+        c.sinceDrop = sinceDrop;
+        c.packets = packets;
+        c.dropped = dropped;
+        c.early = early;
+        c.queued = queued;
+        c.maxQueue = maxQueue;
+        c.bytes = bytes;
+        c.busy = busy;
+        return c;
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.put(BOTTLENECK);
+        out.putInt(count);
+        for (int i = 0; i < count; i++) {
+            out.putDouble(departures[(head + i) % capacity]);
+        }
+        out.putDouble(busyUntil).putDouble(service).putDouble(average).putInt(sinceDrop);
+        out.putLong(packets).putLong(dropped).putLong(early).putLong(queued)
+                .putInt(maxQueue).putLong(bytes).putDouble(busy);
+    }
+
+    public void readFrom(ByteBuffer in) {
+        if (in.get() != BOTTLENECK) {
+            throw new IllegalStateException("Saved with another link model than bottleneck");
+        }
+        count = in.getInt();
+        if (count > capacity) {
+            throw new IllegalStateException("Saved with a queue of more than " + capacity + " packets");
+        }
+        head = 0;
+        for (int i = 0; i < count; i++) {
+            departures[i] = in.getDouble();
+        }
+        busyUntil = in.getDouble();
+        service = in.getDouble();
+        average = in.getDouble();
+        sinceDrop = in.getInt();
+        packets = in.getLong();
+        dropped = in.getLong();
+        early = in.getLong();
+        queued = in.getLong();
+        maxQueue = in.getInt();
+        bytes = in.getLong();
+        busy = in.getDouble();
+    }
+
+    public String report(double end) {
+        String s = String.format("%s queue of %d packets, %.4f bytes/unit, delay %.2f: " +
+                        "%d packets, %d dropped (%.2f%%)",
+                red ? "RED" : "drop-tail", capacity, bandwidth, delay, packets, dropped,
+                packets == 0 ? 0.0 : 100.0 * dropped / packets);
+        if (red) {
+            s += String.format(", %d early", early);
+        }
+        return s + String.format(", average queue %.2f, max queue %d, utilization %.2f%%, " +
+                        "throughput %.4f bytes/unit",
+                packets == 0 ? 0.0 : (double) queued / packets, maxQueue,
+                end <= 0 ? 0.0 : 100.0 * Math.min(busy, end) / end, end <= 0 ? 0.0 : bytes / end);
+    }
+}
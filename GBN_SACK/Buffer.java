@@ -1,4 +1,7 @@
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /***************************************************************************
  * ClassName: Buffer
@@ -28,6 +31,37 @@ public class Buffer<T> {
         this.size = 0;
     }
 
+    /**
+     * Copy of another buffer, sharing its elements
+     */
+    public Buffer(Buffer<T> other) {
+        this.capacity = other.capacity;
+        this.buff = new ArrayList<>(other.buff);
+        this.size = other.size;
+    }
+
+    /**
+     * Checkpointed form of the buffer, each element written by element
+     */
+    public void writeTo(ByteBuffer out, BiConsumer<ByteBuffer, T> element) {
+        out.putInt(this.capacity).putInt(this.size);
+        for (T e : this.buff) {
+            element.accept(out, e);
+        }
+    }
+
+    /**
+     * Buffer read back from a checkpoint, each element read by element
+     */
+    public Buffer(ByteBuffer in, Function<ByteBuffer, T> element) {
+        this.capacity = in.getInt();
+        this.size = in.getInt();
+        this.buff = new ArrayList<>(this.capacity);
+        for (int i = 0; i < this.size; i++) {
+            this.buff.add(element.apply(in));
+        }
+    }
+
     public boolean add(T p) {
         if (isFull()) {
             return false;
@@ -110,7 +144,7 @@ public class Buffer<T> {
     }
 
     public Iterator<T> iterator() {
-        return new BufferIterator(this.size);
+        return new BufferIterator(size());
     }
 
     public Iterator<T> wholeIterator() {
@@ -0,0 +1,356 @@
+/***************************************************************************
+ * ClassName: CalendarEventList
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Calendar queue implementation of EventList (R. Brown, 1988).
+ * Events are hashed by time into a ring of buckets ("days"), each holding a
+ * short sorted list. Dequeue walks the ring from the current day, so add and
+ * removeNext are amortized O(1) as long as a bucket covers roughly a few
+ * events. The number of buckets follows the queue size and the bucket width
+ * follows the gaps observed between dequeued events. Equal-time events come
+ * out in the order they were added, same as EventListImpl. An event knows
+ * its bucket, so remove and reschedule only walk that one short list. The
+ * latest packet arrival scheduled for each entity is remembered, which
+ * makes getLastPacketTime O(1).
+ ****************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CalendarEventList implements EventList {
+    private static final int MIN_BUCKETS = 16;
+    private static final double GAP_WEIGHT = 1.0 / 64;   // weight of a new gap in avgGap
+
+    private Node[] buckets;     // each bucket is a list sorted by (time, order)
+    private int mask;           // buckets.length - 1, length is a power of two
+    private double width;       // time span covered by one bucket
+    private long curDay;        // virtual bucket number of the last dequeued event
+    private int size;
+    private long nextOrder;
+    private Event[] lastArrival;    // latest FROMLAYER3 event added per entity
+    private Node free;              // nodes of removed events, for reuse
+
+    private double lastTime;    // time of the last dequeued event
+    private double avgGap;      // moving average of gaps between dequeued events
+    private int sinceResize;    // dequeues since the width was last checked
+
+    public CalendarEventList() {
+        this(1.0);
+    }
+
+    /**
+     * @param width initial bucket width, should be around three times the
+     *              expected gap between consecutive events
+     */
+    public CalendarEventList(double width) {
+        if (!(width > 0)) {
+            throw new IllegalArgumentException("Bucket width must be > 0");
+        }
+        this.buckets = new Node[MIN_BUCKETS];
+        this.mask = MIN_BUCKETS - 1;
+        this.width = width;
+        this.curDay = 0;
+        this.size = 0;
+        this.nextOrder = 0;
+        this.lastArrival = new Event[2];
+        this.lastTime = 0;
+        this.avgGap = width / 3;
+        this.sinceResize = 0;
+    }
+
+    public boolean add(Event e) {
+        Node node = newNode(e);
+        insert(node);
+        ++size;
+        if (e.getType() == NetworkSimulator.FROMLAYER3) arrivalAdded(e);
+        if (size > 2 * buckets.length) {
+            rebuild(buckets.length * 2, preferredWidth());
+        }
+        return true;
+    }
+
+    public Event removeNext() {
+        if (size == 0) {
+            return null;
+        }
+        Node node = null;
+        long day = curDay;
+        // walk one lap of the ring looking for an event that falls on its day
+        for (int i = 0; i <= mask; i++, day++) {
+            Node head = buckets[(int) (day & mask)];
+            if (head != null && dayOf(head.event.getTime()) == day) {
+                node = head;
+                break;
+            }
+        }
+        if (node == null) {
+            // nothing within a lap, the queue is sparse: jump to the minimum
+            node = findMin();
+            day = dayOf(node.event.getTime());
+        }
+        curDay = day;
+        buckets[(int) (day & mask)] = node.next;
+        Event next = node.event;
+        next.slot = -1;
+        freeNode(node);
+        --size;
+        observe(next.getTime());
+
+        if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+            rebuild(buckets.length / 2, preferredWidth());
+        } else if (++sinceResize > buckets.length) {
+            sinceResize = 0;
+            double preferred = preferredWidth();
+            if (preferred < width / 2 || preferred > width * 2) {
+                rebuild(buckets.length, preferred);
+            }
+        }
+        return next;
+    }
+
+    public String toString() {
+        return sortedEvents().toString();
+    }
+
+    public Event removeTimer(int entity) {
+        Node timer = null;
+        int timerBucket = -1;
+        for (int b = 0; b <= mask; b++) {
+            for (Node n = buckets[b]; n != null; n = n.next) {
+                if (n.event.getType() == NetworkSimulator.TIMERINTERRUPT &&
+                        n.event.getEntity() == entity &&
+                        (timer == null || n.order < timer.order)) {
+                    timer = n;
+                    timerBucket = b;
+                }
+            }
+        }
+        if (timer == null) {
+            return null;
+        }
+        Event e = timer.event;
+        unlink(timerBucket, timer);
+        e.slot = -1;
+        freeNode(timer);
+        --size;
+        return e;
+    }
+
+    public boolean remove(Event e) {
+        Node node = find(e);
+        if (node == null) {
+            return false;
+        }
+        unlink(e.slot, node);
+        e.slot = -1;
+        freeNode(node);
+        --size;
+        if (e.getType() == NetworkSimulator.FROMLAYER3) arrivalMoved(e.getEntity());
+        return true;
+    }
+
+    /**
+     * Moves e to its new bucket. The event gets a new insertion stamp,
+     * exactly like removing it and adding it again would.
+     */
+    public boolean reschedule(Event e, double time) {
+        Node node = find(e);
+        if (node == null) {
+            return false;
+        }
+        unlink(e.slot, node);
+        e.setTime(time);
+        node.order = nextOrder++;
+        insert(node);
+        if (e.getType() == NetworkSimulator.FROMLAYER3) arrivalMoved(e.getEntity());
+        return true;
+    }
+
+    /**
+     * The latest arrival scheduled for an entity, until it is dispatched;
+     * after that no arrival for the entity is left in the queue
+     */
+    public double getLastPacketTime(int entityTo) {
+        if (entityTo < 0 || entityTo >= lastArrival.length) {
+            return 0;
+        }
+        Event last = lastArrival[entityTo];
+        return last != null && isArrival(last, entityTo) ? last.getTime() : 0;
+    }
+
+    /*
+     * Whether e is still queued as an arrival for entity. A pooled event
+     * can come back as something else after it was dispatched.
+     */
+    private boolean isArrival(Event e, int entity) {
+        return e.slot >= 0 && e.getType() == NetworkSimulator.FROMLAYER3 &&
+                e.getEntity() == entity;
+    }
+
+    private void arrivalAdded(Event e) {
+        int entity = e.getEntity();
+        if (entity < 0) return;
+        if (entity >= lastArrival.length) {
+            lastArrival = Arrays.copyOf(lastArrival, Math.max(entity + 1, lastArrival.length * 2));
+        }
+        Event last = lastArrival[entity];
+        if (last == null || !isArrival(last, entity) || e.getTime() >= last.getTime()) {
+            lastArrival[entity] = e;
+        }
+    }
+
+    /*
+     * An arrival was taken out or moved without being dispatched. That
+     * never happens in the simulator, so finding the new latest one with
+     * a scan is fine.
+     */
+    private void arrivalMoved(int entity) {
+        if (entity < 0 || entity >= lastArrival.length) return;
+        Node latest = null;
+        for (int b = 0; b <= mask; b++) {
+            for (Node n = buckets[b]; n != null; n = n.next) {
+                if (n.event.getType() == NetworkSimulator.FROMLAYER3 &&
+                        n.event.getEntity() == entity &&
+                        (latest == null || n.event.getTime() > latest.event.getTime() ||
+                                (n.event.getTime() == latest.event.getTime() && n.order > latest.order))) {
+                    latest = n;
+                }
+            }
+        }
+        lastArrival[entity] = latest == null ? null : latest.event;
+    }
+
+    private Node newNode(Event e) {
+        Node node = free;
+        if (node == null) {
+            return new Node(e, nextOrder++);
+        }
+        free = node.next;
+        node.event = e;
+        node.order = nextOrder++;
+        node.next = null;
+        return node;
+    }
+
+    private void freeNode(Node node) {
+        node.event = null;
+        node.next = free;
+        free = node;
+    }
+
+    private long dayOf(double time) {
+        return (long) Math.floor(time / width);
+    }
+
+    /*
+     * Put a node into its bucket behind every node with a time <= its own,
+     * which keeps equal-time events in insertion order
+     */
+    private void insert(Node node) {
+        double time = node.event.getTime();
+        long day = dayOf(time);
+        if (day < curDay) curDay = day;     // scheduled in the past, make it visible
+        int b = (int) (day & mask);
+        Node prev = null;
+        Node cur = buckets[b];
+        while (cur != null && (cur.event.getTime() < time ||
+                (cur.event.getTime() == time && cur.order < node.order))) {
+            prev = cur;
+            cur = cur.next;
+        }
+        node.next = cur;
+        if (prev == null) buckets[b] = node;
+        else prev.next = node;
+        node.event.slot = b;
+    }
+
+    private Node find(Event e) {
+        if (e.slot < 0 || e.slot > mask) {
+            return null;
+        }
+        Node n = buckets[e.slot];
+        while (n != null && n.event != e) n = n.next;
+        return n;
+    }
+
+    private void unlink(int bucket, Node node) {
+        if (buckets[bucket] == node) {
+            buckets[bucket] = node.next;
+            return;
+        }
+        Node prev = buckets[bucket];
+        while (prev.next != node) prev = prev.next;
+        prev.next = node.next;
+    }
+
+    private Node findMin() {
+        Node min = null;
+        for (int b = 0; b <= mask; b++) {
+            Node head = buckets[b];
+            if (head != null && (min == null || head.event.getTime() < min.event.getTime() ||
+                    (head.event.getTime() == min.event.getTime() && head.order < min.order))) {
+                min = head;
+            }
+        }
+        return min;
+    }
+
+    private void observe(double time) {
+        double gap = time - lastTime;
+        if (gap >= 0) {
+            avgGap += (gap - avgGap) * GAP_WEIGHT;
+        }
+        lastTime = time;
+    }
+
+    /*
+     * Brown's rule of thumb: a bucket should span about three average gaps
+     */
+    private double preferredWidth() {
+        double preferred = 3 * avgGap;
+        return preferred > 0 ? preferred : width;
+    }
+
+    private void rebuild(int nBuckets, double newWidth) {
+        Node[] old = buckets;
+        buckets = new Node[nBuckets];
+        mask = nBuckets - 1;
+        width = newWidth;
+        curDay = dayOf(lastTime);
+        sinceResize = 0;
+        for (Node head : old) {
+            Node n = head;
+            while (n != null) {
+                Node next = n.next;
+                insert(n);
+                n = next;
+            }
+        }
+    }
+
+    private List<Event> sortedEvents() {
+        List<Node> nodes = new ArrayList<>(size);
+        for (Node head : buckets) {
+            for (Node n = head; n != null; n = n.next) nodes.add(n);
+        }
+        nodes.sort((x, y) -> {
+            int c = Double.compare(x.event.getTime(), y.event.getTime());
+            return c != 0 ? c : Long.compare(x.order, y.order);
+        });
+        List<Event> events = new ArrayList<>(nodes.size());
+        for (Node n : nodes) events.add(n.event);
+        return events;
+    }
+
+    private static class Node {
+        private Event event;
+        private long order;         // insertion stamp, breaks time ties FIFO
+        private Node next;
+
+        Node(Event event, long order) {
+            this.event = event;
+            this.order = order;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/***************************************************************************
+ * ClassName: ChannelModel
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Decides which packets a link loses. There is one link in
+ * each direction, shared by all flows, and each has a model of its own,
+ * chosen at startup:
+ *
+ *     -Dchannel=spec       both directions
+ *     -Dchannel.ab=spec    A to B only, overrides -Dchannel
+ *     -Dchannel.ba=spec    B to A only, overrides -Dchannel
+ *
+ * where spec is one of
+ *
+ *     bernoulli            every packet is lost with the loss probability
+ *                          entered at startup (the default)
+ *     gilbert[:p,r[,k,h]]  GilbertElliottChannel, bursts of loss
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+
+public interface ChannelModel {
+    // Checkpoint tags of the implementations
+    byte BERNOULLI = 0;
+    byte GILBERT_ELLIOTT = 1;
+
+    /**
+     * Whether the next packet put on the link is lost. Draws from the
+     * LOSS stream of r only.
+     */
+    boolean lost(RandomStreams r);
+
+    /**
+     * A model in the same state that goes on independently
+     */
+    ChannelModel copy();
+
+    /**
+     * Checkpointed state, read back by readFrom into a model of the same
+     * kind
+     */
+    void writeTo(ByteBuffer out);
+
+    void readFrom(ByteBuffer in);
+}
@@ -0,0 +1,173 @@
+/***************************************************************************
+ * ClassName: Checkpoint
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Checkpoint file of a running simulation (-Dcheckpoint).
+ * The simulator writes its state into an in-memory buffer between two
+ * events, and a background thread copies that buffer into the file through
+ * a memory-mapped FileChannel and forces it to disk. The event loop only
+ * stalls for the in-memory copy. Two buffers take turns, so the next
+ * checkpoint can be taken while the last one is still being written.
+ *
+ * Each checkpoint goes to a temporary file first and is then moved over
+ * the previous one, so the file always holds a complete checkpoint even if
+ * the JVM dies while writing. The state is preceded by a header with a
+ * magic number, format version, length and CRC32 of the state.
+ ****************************************************************************/
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+public class Checkpoint {
+    private static final int MAGIC = 0x52545043;    // "RTPC"
+    private static final int VERSION = 8;
+    private static final int HEADER = 16;
+
+    private final Path path;
+    private final Path temporary;
+    private final ExecutorService writer;
+    private final ByteBuffer[] buffers;
+    private final Future<?>[] writes;   // last write of each buffer
+    private int current;
+
+    public Checkpoint(Path path) {
+        this.path = path;
+        this.temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.buffers = new ByteBuffer[]{ByteBuffer.allocate(1 << 16), ByteBuffer.allocate(1 << 16)};
+        this.writes = new Future<?>[2];
+    }
+
+    /**
+     * Empty buffer to write the next checkpoint into. Waits if the write
+     * of the checkpoint before last is still using it.
+     */
+    public ByteBuffer begin() {
+        current ^= 1;
+        await(current);
+        buffers[current].clear();
+        return buffers[current];
+    }
+
+    /**
+     * A buffer twice as big to start over with after full overflowed
+     */
+    public ByteBuffer grow(ByteBuffer full) {
+        if (full.capacity() >= Integer.MAX_VALUE / 2 - HEADER) {
+            throw new BufferOverflowException();
+        }
+        buffers[current] = ByteBuffer.allocate(full.capacity() * 2);
+        return buffers[current];
+    }
+
+    /**
+     * Write the state put into the buffer from begin in the background
+     */
+    public void commit(ByteBuffer state) {
+        state.flip();
+        writes[current] = writer.submit(() -> {
+            write(state);
+            return null;
+        });
+    }
+
+    private void write(ByteBuffer state) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(state.duplicate());
+        int length = state.remaining();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + length);
+            map.putInt(MAGIC).putInt(VERSION).putInt(length).putInt((int) crc.getValue());
+            map.put(state.duplicate());
+            map.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Wait for the checkpoints still being written and stop the writer
+     */
+    public void close() {
+        try {
+            await(0);
+            await(1);
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    private void await(int buffer) {
+        if (writes[buffer] == null) {
+            return;
+        }
+        try {
+            writes[buffer].get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing checkpoint " + path, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException("Cannot write checkpoint " + path, (IOException) cause);
+            }
+            throw new IllegalStateException("Cannot write checkpoint " + path, cause);
+        } finally {
+            writes[buffer] = null;
+        }
+    }
+
+    /**
+     * Map a checkpoint file and check it
+     *
+     * @return the state in it, positioned at its start
+     */
+    public static ByteBuffer read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER) {
+                throw new IllegalStateException(path + " is not a checkpoint");
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.getInt() != MAGIC) {
+                throw new IllegalStateException(path + " is not a checkpoint");
+            }
+            int version = map.getInt();
+            if (version != VERSION) {
+                throw new IllegalStateException(path + " has checkpoint version " + version +
+                        ", expected " + VERSION);
+            }
+            int length = map.getInt();
+            int expected = map.getInt();
+            if (length < 0 || length > map.remaining()) {
+                throw new IllegalStateException(path + " is truncated");
+            }
+            ByteBuffer state = map.slice();
+            state.limit(length);
+            CRC32 crc = new CRC32();
+            crc.update(state.duplicate());
+            if ((int) crc.getValue() != expected) {
+                throw new IllegalStateException(path + " is damaged, its CRC does not match");
+            }
+            return state;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read checkpoint " + path, e);
+        }
+    }
+}
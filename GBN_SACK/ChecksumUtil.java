@@ -9,52 +9,64 @@
  * Date: 10/27/2019
  ****************************************************************************/
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 public class ChecksumUtil {
+    // Wire form of the packet being checked, per thread as entities may run on several
+    private static final ThreadLocal<ByteBuffer> scratch =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(256));
 
     public static boolean isCorrupted(Packet pkt) {
-        byte[] pktBtyeArr = getByteArray(pkt.getSeqnum(), pkt.getAcknum(), pkt.getPayload(), pkt.getSack());
-        int sum = calculateSum(pktBtyeArr);
-        sum += pkt.getChecksum();
+        ByteBuffer wire = scratch(pkt.size());
+        pkt.encode(wire);
+        return isCorrupted(wire, 0);
+    }
+
+    /**
+     * Whether the packet encoded at position in wire is corrupted. The
+     * checksum covers the sequence and ack numbers, the payload and the
+     * sack, i.e. the wire format without the checksum and the lengths.
+     */
+    public static boolean isCorrupted(ByteBuffer wire, int position) {
+        int sum = calculateSum(wire, position, Packet.size(wire, position));
+        sum += wire.getInt(position + Packet.CHECKSUM);
         return sum != 0xFFFF;
     }
 
     public static int getCheckSum(int seq, int ack, Message msg, int[] sack) {
-        byte[] buff = new byte[0];      // init an empty byte arr
-        buff = getByteArray(seq, ack, msg.getData(), sack);
+        byte[] data = msg.getData();
+        ByteBuffer wire = scratch(Packet.HEADER + data.length + 4 * sack.length);
+        Packet.encode(wire, seq, ack, 0, data, sack);
         // Final 1's complement value correction to 16-bits
-        int checksum = ~calculateSum(buff);
+        int checksum = ~calculateSum(wire, 0, wire.position());
         return checksum & 0xFFFF;
     }
 
-    private static byte[] getByteArray(int seq, int ack, String str, int[] sack) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        try {
-            out.write(intToByteArray(seq));
-            out.write(intToByteArray(ack));
-            out.write(str.getBytes("UTF-8"));
-            for (int i = 0; i < sack.length; i++) {
-                byte[] sackBytes = intToByteArray(sack[i]);
-                out.write(sackBytes);
-            }
-        } catch (IOException ioe) {
-            System.out.println("Failed to generate ByteArrayOutputStream of packet ");
+    private static ByteBuffer scratch(int size) {
+        ByteBuffer wire = scratch.get();
+        if (wire.capacity() < size) {
+            wire = ByteBuffer.allocate(Math.max(size, 2 * wire.capacity()));
+            scratch.set(wire);
         }
-        return out.toByteArray();
+        wire.clear();
+        return wire;
     }
 
-    private static int calculateSum(byte[] buf) {
-        int length = buf.length;
-        int i = 0;
-        int sum = 0;
+    // Sum of the packet of length bytes at position, skipping the checksum and the lengths
+    private static int calculateSum(ByteBuffer wire, int position, int length) {
+        int sum = calculateSum(0, wire, position, position + Packet.CHECKSUM);
+        return calculateSum(sum, wire, position + Packet.HEADER, position + length);
+    }
+
+    // Add the bytes from i to end to sum, which covers an even number of bytes so far
+    private static int calculateSum(int sum, ByteBuffer buf, int i, int end) {
+        int length = end - i;
         int data;
 
         // Handle all pairs
         while (length > 1) {
             // Corrected to include @Andy's edits and various comments on Stack Overflow
-            data = (((buf[i] << 8) & 0xFF00) | ((buf[i + 1]) & 0xFF));
+            data = (((buf.get(i) << 8) & 0xFF00) | ((buf.get(i + 1)) & 0xFF));
             sum += data;
             // 1's complement carry bit correction in 16-bits (detecting sign extension)
             if ((sum & 0xFFFF0000) > 0) {
@@ -68,7 +80,7 @@ public class ChecksumUtil {
         // Handle remaining byte in odd length buffers
         if (length > 0) {
             // Corrected to include @Andy's edits and various comments on Stack Overflow
-            sum += (buf[i] << 8 & 0xFF00);
+            sum += (buf.get(i) << 8 & 0xFF00);
             // 1's complement carry bit correction in 16-bits (detecting sign extension)
             if ((sum & 0xFFFF0000) > 0) {
                 sum = sum & 0xFFFF;
@@ -78,15 +90,6 @@ public class ChecksumUtil {
         return sum;     //  16 bit < sum < 32 bit
     }
 
-    private static byte[] intToByteArray(int n) {
-        byte[] result = new byte[4];
-        result[0] = (byte) (n >> 24);
-        result[1] = (byte) (n >> 16);
-        result[2] = (byte) (n >> 8);
-        result[3] = (byte) (n /*>> 0*/);
-        return result;
-    }
-
 //    public static void main(String[] argv) {
 //        int seq = 1;
 //        int ack = 1;
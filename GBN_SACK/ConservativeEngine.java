@@ -0,0 +1,461 @@
+/***************************************************************************
+ * ClassName: ConservativeEngine
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Conservative parallel version of NetworkSimulator.runSimulator
+ * (-Dengine=conservative). Entity A and entity B each get their own event
+ * queue and thread. No link delivers a packet sooner than the lookahead
+ * after it was sent (NetworkSimulator.minLinkDelay), so nothing sent in
+ * the time window [T, T + lookahead) can arrive inside it, and both
+ * hosts work through the window on their own before meeting at a
+ * barrier.
+ *
+ * The run is the same as the sequential one, OutputFile included:
+ *  - Packets sent during a window are not put on the link right away. At
+ *    the barrier the events of both hosts are merged back into sequential
+ *    order, and in that order the messages they delivered are written and
+ *    the loss, delay and corruption of their packets are drawn. That
+ *    consumes the shared random streams exactly like the sequential engine.
+ *  - The sequential event lists break time ties by insertion order. Here
+ *    an event is ordered by (time, rank of the event that scheduled it,
+ *    position among the events that one scheduled), which gives the same
+ *    order. Ranks are numbered globally at the barrier. Until then a host
+ *    numbers its own events above all global ranks, which keeps its own
+ *    queue in the right order.
+ *  - The layer 5 arrival that ends the run is known from the start (see
+ *    NetworkSimulator.stopTime). Windows stop short of it, and the events
+ *    at that exact time are run one at a time in global order.
+ *
+ * The statistics of StudentNetworkSimulator stay the same as well. Only
+ * the interleaving of what A and B print to the console differs.
+ ****************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+public class ConservativeEngine implements ParallelEngine {
+    // A host numbers the events it ran in the current window from here up
+    private static final long PROVISIONAL = Long.MAX_VALUE / 2;
+
+    private static final Comparator<Scheduled> ORDER = (x, y) -> {
+        int c = Double.compare(x.event.getTime(), y.event.getTime());
+        if (c == 0) c = Long.compare(x.parent.rank, y.parent.rank);
+        if (c == 0) c = Integer.compare(x.child, y.child);
+        return c;
+    };
+
+    private final NetworkSimulator sim;
+    private final Host[] hosts;
+    private final ThreadLocal<Host> host;   // host whose event the calling thread runs
+    private final CyclicBarrier barrier;
+    private final double[] lastArrival;     // latest arrival put on the link per entity
+    private final double lookahead;
+    private double stopTime;
+    private long nextRank;
+
+    // written by the barrier action, read by both hosts after the barrier
+    private double windowEnd;
+    private boolean finished;
+    private Throwable failure;
+
+    public ConservativeEngine(NetworkSimulator sim) {
+        this.sim = sim;
+        this.hosts = new Host[]{new Host(NetworkSimulator.A), new Host(NetworkSimulator.B)};
+        this.host = new ThreadLocal<>();
+        this.barrier = new CyclicBarrier(2, this::endWindow);
+        this.lastArrival = new double[2];
+        this.lookahead = sim.minLinkDelay();
+        this.nextRank = 0;
+    }
+
+    public double run() {
+        stopTime = sim.stopTime();
+
+        // everything scheduled during initialization comes before the rest
+        Dispatch init = new Dispatch(null, 0);
+        init.rank = -1;
+        hosts[NetworkSimulator.A].current = init;
+        hosts[NetworkSimulator.B].current = init;
+        host.set(hosts[NetworkSimulator.A]);
+        sim.aInit();
+        host.set(hosts[NetworkSimulator.B]);
+        sim.bInit();
+        host.set(hosts[NetworkSimulator.A]);
+        generateNextArrival(hosts[NetworkSimulator.A]);
+        host.remove();
+        List<Scheduled> arrivals = new ArrayList<>();
+        commit(init, arrivals);
+        schedule(arrivals);
+
+        if (nextWindow()) {
+            Thread[] threads = new Thread[hosts.length];
+            for (int i = 0; i < hosts.length; i++) {
+                Host h = hosts[i];
+                threads[i] = new Thread(() -> work(h), "host-" + (char) ('A' + i));
+                threads[i].start();
+            }
+            for (Thread t : threads) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the hosts", e);
+                }
+            }
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            if (failure instanceof Error) throw (Error) failure;
+            if (failure != null) throw new IllegalStateException(failure);
+        }
+        return runSerially();
+    }
+
+    private void work(Host h) {
+        host.set(h);
+        try {
+            while (!finished) {
+                runWindow(h);
+                barrier.await();
+            }
+        } catch (BrokenBarrierException e) {
+            // the other host failed, its failure is reported
+        } catch (Throwable t) {
+            synchronized (this) {
+                if (failure == null) failure = t;
+            }
+            barrier.reset();
+        }
+    }
+
+    private void runWindow(Host h) {
+        while (!h.queue.isEmpty() && h.queue.peek().event.getTime() < windowEnd) {
+            Scheduled next = h.queue.poll();
+            Dispatch d = new Dispatch(next, next.event.getTime());
+            d.rank = PROVISIONAL + h.done.size();
+            h.done.add(d);
+            if (!dispatch(h, d)) {
+                throw new IllegalStateException("Simulation ended at " + h.time +
+                        " before its stop time " + stopTime);
+            }
+        }
+    }
+
+    /*
+     * Barrier action: put the events of the window in sequential order,
+     * rank them and apply what they did, then set up the next window
+     */
+    private void endWindow() {
+        List<Dispatch> a = hosts[NetworkSimulator.A].done;
+        List<Dispatch> b = hosts[NetworkSimulator.B].done;
+        List<Scheduled> arrivals = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < a.size() || j < b.size()) {
+            Dispatch d;
+            if (j == b.size() || (i < a.size() && ORDER.compare(a.get(i).scheduled, b.get(j).scheduled) < 0)) {
+                d = a.get(i++);
+            } else {
+                d = b.get(j++);
+            }
+            d.rank = nextRank++;
+            commit(d, arrivals);
+        }
+        a.clear();
+        b.clear();
+        schedule(arrivals);
+        finished = !nextWindow();
+    }
+
+    /*
+     * Set the end of the next window, false if the rest of the run has to
+     * be done serially
+     */
+    private boolean nextWindow() {
+        double t = Double.POSITIVE_INFINITY;
+        for (Host h : hosts) {
+            if (!h.queue.isEmpty()) t = Math.min(t, h.queue.peek().event.getTime());
+        }
+        if (t >= stopTime) {
+            return false;
+        }
+        windowEnd = Math.min(t + lookahead, stopTime);
+        return true;
+    }
+
+    /*
+     * Run what is left, one event at a time in global order, until the
+     * stop event
+     */
+    private double runSerially() {
+        double time = stopTime;
+        List<Scheduled> arrivals = new ArrayList<>();
+        while (true) {
+            Scheduled a = hosts[NetworkSimulator.A].queue.peek();
+            Scheduled b = hosts[NetworkSimulator.B].queue.peek();
+            if (a == null && b == null) {
+                break;
+            }
+            Host h = b == null || (a != null && ORDER.compare(a, b) < 0) ?
+                    hosts[NetworkSimulator.A] : hosts[NetworkSimulator.B];
+            Scheduled next = h.queue.poll();
+            Dispatch d = new Dispatch(next, next.event.getTime());
+            d.rank = nextRank++;
+            host.set(h);
+            boolean more = dispatch(h, d);
+            time = h.time;
+            commit(d, arrivals);
+            schedule(arrivals);
+            arrivals.clear();
+            if (!more) {
+                break;
+            }
+        }
+        host.remove();
+        return time;
+    }
+
+    /*
+     * Hand one event to the student, false if it ends the simulation
+     */
+    private boolean dispatch(Host h, Dispatch d) {
+        Event next = d.scheduled.event;
+        h.current = d;
+        h.time = next.getTime();
+
+        if (sim.traceLevel >= 2) {
+            sim.console.println();
+            sim.console.print("EVENT time: " + next.getTime());
+            sim.console.print("  type: " + next.getType());
+            sim.console.println("  entity: " + next.getEntity());
+        }
+
+        switch (next.getType()) {
+            case NetworkSimulator.TIMERINTERRUPT:
+                if (h.timer == d.scheduled) h.timer = null;
+                if (next.getEntity() == NetworkSimulator.A) {
+                    sim.aTimerInterrupt();
+                } else {
+                    sim.console.println("INTERNAL PANIC: Timeout for invalid entity");
+                }
+                break;
+
+            case NetworkSimulator.FROMLAYER3:
+                if (next.getEntity() == NetworkSimulator.A) {
+                    sim.aInput(next.getPacket());
+                } else {
+                    sim.bInput(next.getPacket());
+                }
+                break;
+
+            case NetworkSimulator.FROMLAYER5:
+                generateNextArrival(h);
+                byte[] data = sim.nextMessageData();
+                if (data == null) {
+                    return false;
+                }
+                sim.aOutput(new Message(data));
+                break;
+
+            default:
+                sim.console.println("INTERNAL PANIC: Unknown event type");
+        }
+        return true;
+    }
+
+    /*
+     * Write what d delivered and put the packets it sent on the link
+     */
+    private void commit(Dispatch d, List<Scheduled> arrivals) {
+        for (byte[] data : d.delivered) {
+            sim.write(data);
+        }
+        for (Send s : d.sends) {
+            double last = lastArrival[s.destination] >= d.time ? lastArrival[s.destination] : 0;
+            Event arrival = sim.transmit(s.destination, s.packet, d.time, last);
+            if (arrival != null) {
+                lastArrival[s.destination] = arrival.getTime();
+                arrivals.add(new Scheduled(arrival, d, s.child));
+            }
+        }
+        // only the rank is needed from now on
+        d.scheduled = null;
+        d.delivered = null;
+        d.sends = null;
+    }
+
+    private void schedule(List<Scheduled> arrivals) {
+        for (Scheduled s : arrivals) {
+            hosts[s.event.getEntity()].queue.add(s);
+        }
+    }
+
+    private Scheduled add(Host h, Event e) {
+        Scheduled s = new Scheduled(e, h.current, h.current.children++);
+        h.queue.add(s);
+        return s;
+    }
+
+    private void generateNextArrival(Host h) {
+        double x = sim.nextArrivalGap();
+        add(h, new Event(h.time + x, NetworkSimulator.FROMLAYER5, NetworkSimulator.A));
+    }
+
+    // NetworkSimulator routines while this engine runs
+
+    public Event startTimer(int entity, double increment) {
+        Host h = host.get();
+        if (sim.traceLevel > 2) {
+            sim.console.println("startTimer: starting timer at " + h.time);
+        }
+        if (entity != h.entity) {
+            sim.console.println("startTimer: Warning: invalid entity");
+            return null;
+        }
+        if (h.timer != null) {
+            sim.console.println("startTimer: Warning: Attempting to start a " +
+                    "timer that is already running");
+            return h.timer.event;
+        }
+        h.timer = add(h, new Event(h.time + increment, NetworkSimulator.TIMERINTERRUPT, entity));
+        return h.timer.event;
+    }
+
+    public void stopTimer(int entity) {
+        Host h = host.get();
+        if (sim.traceLevel > 2) {
+            sim.console.println("stopTimer: stopping timer at " + h.time);
+        }
+        if (entity != h.entity) {
+            sim.console.println("stopTimer: Warning: invalid entity");
+            return;
+        }
+        stopTimer(h.timer == null ? null : h.timer.event);
+    }
+
+    public void stopTimer(Event timer) {
+        Host h = host.get();
+        if (timer == null || h.timer == null || h.timer.event != timer || !h.queue.remove(h.timer)) {
+            sim.console.println("stopTimer: Warning: Unable to cancel your timer");
+            return;
+        }
+        h.timer = null;
+    }
+
+    public Event restartTimer(int entity, double increment) {
+        Host h = host.get();
+        if (sim.traceLevel > 2) {
+            sim.console.println("restartTimer: restarting timer at " + h.time);
+        }
+        if (entity != h.entity) {
+            sim.console.println("restartTimer: Warning: invalid entity");
+            return null;
+        }
+        Event timer;
+        if (h.timer != null && h.queue.remove(h.timer)) {
+            timer = h.timer.event;
+            timer.setTime(h.time + increment);
+        } else {
+            timer = new Event(h.time + increment, NetworkSimulator.TIMERINTERRUPT, entity);
+        }
+        h.timer = add(h, timer);
+        return timer;
+    }
+
+    public void toLayer3(int callingEntity, Packet p) {
+        Host h = host.get();
+        if (sim.traceLevel > 2) {
+            sim.console.println("toLayer3: " + p);
+        }
+        if (callingEntity != h.entity) {
+            sim.console.println("toLayer3: Warning: invalid packet sender");
+            return;
+        }
+        int destination = callingEntity == NetworkSimulator.A ? NetworkSimulator.B : NetworkSimulator.A;
+        h.current.sends.add(new Send(destination, p, h.current.children++));
+    }
+
+    public void toLayer5(byte[] dataSent) {
+        host.get().current.delivered.add(dataSent);
+    }
+
+    public double getTime() {
+        return host.get().time;
+    }
+
+    public void printEventList() {
+        Host h = host.get();
+        List<Scheduled> sorted = new ArrayList<>(h.queue);
+        sorted.sort(ORDER);
+        List<Event> events = new ArrayList<>(sorted.size());
+        for (Scheduled s : sorted) events.add(s.event);
+        sim.console.println(events.toString());
+    }
+
+    /*
+     * One entity with its own queue, run by its own thread
+     */
+    private static class Host {
+        private final int entity;
+        private final PriorityQueue<Scheduled> queue;
+        private final List<Dispatch> done;  // events run in the current window
+        private double time;
+        private Scheduled timer;
+        private Dispatch current;           // event being run
+
+        Host(int entity) {
+            this.entity = entity;
+            this.queue = new PriorityQueue<>(ORDER);
+            this.done = new ArrayList<>();
+        }
+    }
+
+    /*
+     * A queued event with the event that scheduled it
+     */
+    private static class Scheduled {
+        private final Event event;
+        private final Dispatch parent;
+        private final int child;    // how many events parent had scheduled before
+
+        Scheduled(Event event, Dispatch parent, int child) {
+            this.event = event;
+            this.parent = parent;
+            this.child = child;
+        }
+    }
+
+    /*
+     * An event that has been run, with what it delivered and sent until
+     * that is committed
+     */
+    private static class Dispatch {
+        private Scheduled scheduled;
+        private final double time;
+        private long rank;
+        private int children;
+        private List<byte[]> delivered;
+        private List<Send> sends;
+
+        Dispatch(Scheduled scheduled, double time) {
+            this.scheduled = scheduled;
+            this.time = time;
+            this.delivered = new ArrayList<>(2);
+            this.sends = new ArrayList<>(2);
+        }
+    }
+
+    private static class Send {
+        private final int destination;
+        private final Packet packet;
+        private final int child;
+
+        Send(int destination, Packet packet, int child) {
+            this.destination = destination;
+            this.packet = packet;
+            this.child = child;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/***************************************************************************
+ * ClassName: CorruptionModel
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Decides which packets a link corrupts and how. Like
+ * ChannelModel, each direction has a model of its own, shared by all
+ * flows, chosen at startup:
+ *
+ *     -Dcorruption=spec       both directions
+ *     -Dcorruption.ab=spec    A to B only, overrides -Dcorruption
+ *     -Dcorruption.ba=spec    B to A only, overrides -Dcorruption
+ *
+ * where spec is one of
+ *
+ *     legacy          a packet is corrupted with the corruption probability
+ *                     entered at startup, in its payload, seqnum or acknum
+ *                     (the default)
+ *     ber:rate        BitErrorCorruption, every bit on the wire flips with
+ *                     probability rate
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+
+public interface CorruptionModel {
+    // Checkpoint tags of the implementations
+    byte LEGACY = 0;
+    byte BIT_ERRORS = 1;
+
+    /**
+     * Corrupt packet or let it through. Packets are immutable, so a
+     * corrupted one is a copy and packet itself is never changed. Draws
+     * from the CORRUPT and CORRUPTION streams of r only.
+     *
+     * @return packet if it got through intact, else its corrupted copy
+     */
+    Packet corrupt(Packet packet, RandomStreams r);
+
+    /**
+     * A model in the same state that goes on independently
+     */
+    CorruptionModel copy();
+
+    /**
+     * Checkpointed state, read back by readFrom into a model of the same
+     * kind
+     */
+    void writeTo(ByteBuffer out);
+
+    void readFrom(ByteBuffer in);
+
+    /**
+     * What happened on the link by the end of the run, null if nothing to
+     * report
+     */
+    String report();
+}
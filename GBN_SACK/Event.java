@@ -3,6 +3,16 @@ public class Event {
     private int type;
     private int entity;
     private Packet packet;
+    // In arena mode (-Darena=true) the packet is in a slot of arena
+    // instead, and the event holds a reference to it until drop
+    private PacketArena arena;
+    private int handle = PacketArena.NIL;
+
+    // Position of this event in the EventList holding it, -1 when it is
+    // not scheduled, and the insertion stamp the list gave it. Only the
+    // event list implementations touch these.
+    int slot = -1;
+    long stamp;
 
     public Event(double t, int ty, int ent) {
         time = t;
@@ -15,7 +25,47 @@ public class Event {
         time = t;
         type = ty;
         entity = ent;
-        packet = new Packet(p);
+        packet = p;
+    }
+
+    /*
+     * Reinitialize a recycled event
+     */
+    void reset(double t, int ty, int ent, Packet p) {
+        time = t;
+        type = ty;
+        entity = ent;
+        packet = p;
+        arena = null;
+        handle = PacketArena.NIL;
+    }
+
+    /*
+     * Carry the packet of handle, taking over the reference it holds
+     */
+    void hold(PacketArena a, int h) {
+        packet = null;
+        arena = a;
+        handle = h;
+    }
+
+    /*
+     * Release the packet of the handle carried, if any
+     */
+    void drop() {
+        if (handle != PacketArena.NIL) {
+            arena.release(handle);
+            arena = null;
+            handle = PacketArena.NIL;
+        }
+    }
+
+    int handle() {
+        return handle;
+    }
+
+    PacketArena arena() {
+        return arena;
     }
 
     public boolean setTime(double t) {
@@ -47,13 +97,8 @@ public class Event {
     }
 
     public boolean setPacket(Packet p) {
-        if (p == null) {
-            packet = null;
-        } else {
-            packet = new Packet(p.getSeqnum(), p.getAcknum(),
-                    p.getChecksum(), p.getPayload(), p.getSack());
-        }
-
+        drop();
+        packet = p;
         return true;
     }
 
@@ -70,12 +115,12 @@ public class Event {
     }
 
     public Packet getPacket() {
-        return packet;
+        return handle == PacketArena.NIL ? packet : arena.get(handle);
     }
 
     public String toString() {
         return ("time: " + time + "  type: " + type + "  entity: " + entity +
-                "packet: " + packet);
+                "packet: " + getPacket());
     }
 
 }
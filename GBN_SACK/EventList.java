@@ -8,4 +8,11 @@ public interface EventList {
     public Event removeTimer(int entity);
 
     public double getLastPacketTime(int entityTo);
+
+    // Cancel an event previously added to this list
+    public boolean remove(Event e);
+
+    // Move a scheduled event to a new time, as if it was removed and added
+    // again, without searching the list for it
+    public boolean reschedule(Event e, double time);
 }
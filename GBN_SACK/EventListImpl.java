@@ -70,4 +70,17 @@ public class EventListImpl implements EventList {
 
         return time;
     }
+
+    public boolean remove(Event e) {
+        return data.removeElement(e);
+    }
+
+    public boolean reschedule(Event e, double time) {
+        if (!data.removeElement(e)) {
+            return false;
+        }
+        e.setTime(time);
+        data.addElement(e);
+        return true;
+    }
 }
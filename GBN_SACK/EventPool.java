@@ -0,0 +1,50 @@
+/***************************************************************************
+ * ClassName: EventPool
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Free list of Event objects for the pooled mode of
+ * NetworkSimulator. An event is handed back once it has been dispatched or
+ * cancelled and is reused for the next event scheduled. After the first few
+ * hundred events the pool holds enough objects and scheduling stops
+ * allocating. Packets are immutable and passed on as they are, so they
+ * need no pool.
+ ****************************************************************************/
+
+import java.util.Arrays;
+
+public class EventPool {
+    private Event[] events;
+    private int nEvents;
+
+    public EventPool() {
+        this.events = new Event[64];
+        this.nEvents = 0;
+    }
+
+    /**
+     * @param p packet the event carries, can be null
+     */
+    public Event event(double time, int type, int entity, Packet p) {
+        Event e;
+        if (nEvents > 0) {
+            e = events[--nEvents];
+            events[nEvents] = null;
+        } else {
+            e = new Event(time, type, entity);
+        }
+        e.reset(time, type, entity, p);
+        return e;
+    }
+
+    /**
+     * Return an event to the pool. It may not be used by anyone after
+     * this, the packet it carried may.
+     */
+    public void release(Event e) {
+        e.reset(0, -1, -1, null);
+        if (nEvents == events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        events[nEvents++] = e;
+    }
+}
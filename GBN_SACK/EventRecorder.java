@@ -0,0 +1,183 @@
+/***************************************************************************
+ * ClassName: EventRecorder
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Append-only binary log of a run (-Drecord=file). There is
+ * one record for every event the simulator dispatches, in dispatch order:
+ *
+ *     double time, byte type, int entity,
+ *     byte has packet, [packet as in Packet.encode],
+ *     short draws, draws x (byte stream, double value)
+ *
+ * The draws are the random numbers taken while the event was dispatched,
+ * e.g. loss, delay and corruption of the packets it sent. Draws taken
+ * before the first event are in a record of type INIT. The file starts
+ * with a header holding the simulation parameters and the specs of the
+ * channel, link and corruption models, see EventReplay for reading it. Records are buffered and written through a FileChannel; a
+ * log cut short by a crash is readable up to its last whole record.
+ ****************************************************************************/
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class EventRecorder {
+    static final int MAGIC = 0x5254504c;    // "RTPL"
+    static final int VERSION = 5;
+    static final int INIT = -1;             // type of the record before the first event
+
+    private final Path path;
+    private final FileChannel channel;
+    private ByteBuffer out;
+    private boolean open;       // a record has been started and not finished
+
+    // draws of the current record
+    private byte[] streams;
+    private double[] values;
+    private int draws;
+
+    public EventRecorder(Path path, int maxMessages, double loss, double corrupt,
+                         double avgDelay, int flows, int seed, String models) {
+        this.path = path;
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create event log " + path, e);
+        }
+        // room for a record with a packet as large as there can be
+        this.out = ByteBuffer.allocate(Math.max(1 << 16, 8 * NetworkSimulator.MAXDATASIZE));
+        this.streams = new byte[8];
+        this.values = new double[8];
+        out.putInt(MAGIC).putInt(VERSION).putInt(maxMessages).putDouble(loss)
+                .putDouble(corrupt).putDouble(avgDelay).putInt(flows).putInt(NetworkSimulator.MAXDATASIZE)
+                .putInt(seed);
+        byte[] specs = models.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) specs.length).put(specs);
+        begin(0, INIT, -1, null);
+    }
+
+    /**
+     * Generator that continues r and logs every number drawn from it
+     */
+    public RandomStreams watch(RandomStreams r) {
+        return new RandomStreams() {
+            public double nextDouble(int stream) {
+                double value = r.nextDouble(stream);
+                draw(stream, value);
+                return value;
+            }
+
+            public RandomStreams copy() {
+                return r.copy();
+            }
+
+            public RandomStreams split() {
+                return r.split();
+            }
+
+            public void writeTo(ByteBuffer out) {
+                r.writeTo(out);
+            }
+        };
+    }
+
+    /**
+     * Start the record of e, which is about to be dispatched
+     */
+    public void event(Event e) {
+        finish();
+        begin(e.getTime(), e.getType(), e.getEntity(), e.getPacket());
+    }
+
+    private void begin(double time, int type, int entity, Packet p) {
+        out.mark();
+        try {
+            put(time, type, entity, p);
+        } catch (BufferOverflowException x) {
+            out.reset();
+            flush();
+            if (!fits(time, type, entity, p)) {
+                throw new IllegalStateException("Event too large for the event log: " + p);
+            }
+        }
+        open = true;
+    }
+
+    private boolean fits(double time, int type, int entity, Packet p) {
+        try {
+            put(time, type, entity, p);
+            return true;
+        } catch (BufferOverflowException x) {
+            return false;
+        }
+    }
+
+    private void put(double time, int type, int entity, Packet p) {
+        out.putDouble(time).put((byte) type).putInt(entity);
+        out.put((byte) (p == null ? 0 : 1));
+        if (p != null) {
+            p.encode(out);
+        }
+    }
+
+    private void draw(int stream, double value) {
+        if (draws == values.length) {
+            streams = Arrays.copyOf(streams, draws * 2);
+            values = Arrays.copyOf(values, draws * 2);
+        }
+        streams[draws] = (byte) stream;
+        values[draws] = value;
+        ++draws;
+    }
+
+    // Complete the current record with its draws
+    private void finish() {
+        if (!open) {
+            return;
+        }
+        int size = 2 + 9 * draws;
+        if (out.remaining() < size) {
+            flush();
+            if (out.capacity() < size) {
+                out = ByteBuffer.allocate(size);
+            }
+        }
+        out.putShort((short) draws);
+        for (int i = 0; i < draws; i++) {
+            out.put(streams[i]).putDouble(values[i]);
+        }
+        draws = 0;
+        open = false;
+    }
+
+    // Write out the buffer, up to where the next put goes
+    private void flush() {
+        ByteBuffer done = out.duplicate();
+        done.flip();
+        try {
+            while (done.hasRemaining()) {
+                channel.write(done);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write event log " + path, e);
+        }
+        out.clear();
+    }
+
+    public void close() {
+        finish();
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close event log " + path, e);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+/***************************************************************************
+ * ClassName: EventReplay
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Runs the student's protocol again from a log written by
+ * EventRecorder (-Dreplay=file). It reads the log record by record and
+ * hands each event to the student exactly as the simulator did. Since the
+ * logged events already carry the outcome, the event list is not needed:
+ * toLayer3 schedules nothing and timers are only kept track of. Every
+ * packet sent still goes through the channel, link and corruption models,
+ * drawing the numbers logged with the event instead of random ones, so
+ * they end up in the same state as in the recorded run: they trace what
+ * became of each packet, and the link reports at the end are those of the
+ * recorded run. The log names the models it was recorded with, replaying
+ * it with others is an error.
+ *
+ * With -Dreplay.from=t, everything printed before simulated time t is
+ * thrown away, so a late part of a run can be examined at any trace level
+ * without printing all that comes before it. Layer 5 output is written
+ * for the whole run. At trace level 2 and up the random draws of every
+ * event are printed as well.
+ ****************************************************************************/
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class EventReplay implements ParallelEngine {
+    private final NetworkSimulator sim;
+    private final Path path;
+    private final double from;
+    private FileChannel channel;
+    private ByteBuffer in;
+    private boolean eof;
+
+    private double time;
+    private Event[] timers;     // running timer of each entity, null if none
+    private double[] lastArrival;   // latest arrival put on the link into each side
+    private Draws logged;       // what the models draw from
+
+    // the record just read
+    private double recordTime;
+    private int type;
+    private int entity;
+    private Packet packet;
+    private int draws;
+    private byte[] streams;
+    private double[] values;
+
+    public EventReplay(NetworkSimulator sim, Path path) {
+        this.sim = sim;
+        this.path = path;
+        this.from = Double.parseDouble(System.getProperty("replay.from", "0"));
+        this.timers = new Event[2 * sim.getNumFlows()];
+        this.lastArrival = new double[2];
+        this.logged = new Draws();
+        this.streams = new byte[8];
+        this.values = new double[8];
+    }
+
+    public double run() {
+        // nothing is printed or traced before from
+        PrintStream console = sim.console;
+        int traceLevel = sim.traceLevel;
+        if (from > 0) {
+            sim.console = new Muted();
+            sim.traceLevel = 0;
+        }
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            in = ByteBuffer.allocate(1 << 16);
+            in.flip();
+            readHeader();
+
+            for (int flow = 0; flow < sim.getNumFlows(); flow++) {
+                sim.aInit(flow);
+                sim.bInit(flow);
+            }
+
+            while (next()) {
+                if (type == EventRecorder.INIT) {
+                    continue;
+                }
+                time = recordTime;
+                if (time >= from) {
+                    sim.console = console;
+                    sim.traceLevel = traceLevel;
+                }
+                if (!dispatch()) {
+                    break;
+                }
+            }
+            return time;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read event log " + path, e);
+        } finally {
+            sim.console = console;
+            sim.traceLevel = traceLevel;
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void readHeader() throws IOException {
+        if (!fill(48) || in.getInt() != EventRecorder.MAGIC) {
+            throw new IllegalStateException(path + " is not an event log");
+        }
+        int version = in.getInt();
+        if (version != EventRecorder.VERSION) {
+            throw new IllegalStateException(path + " has event log version " + version +
+                    ", expected " + EventRecorder.VERSION);
+        }
+        sim.checkParameters(in.getInt(), in.getDouble(), in.getDouble(), in.getDouble(), in.getInt(),
+                in.getInt());
+        in.getInt();    // seed
+        if (!fill(2) || !fill(2 + (in.getShort(in.position()) & 0xffff))) {
+            throw new IllegalStateException(path + " is cut off in its header");
+        }
+        byte[] specs = new byte[in.getShort() & 0xffff];
+        in.get(specs);
+        sim.checkModels(new String(specs, StandardCharsets.UTF_8));
+    }
+
+    // Make sure at least n bytes can be read, false at the end of the log
+    private boolean fill(int n) throws IOException {
+        while (in.remaining() < n && !eof) {
+            in.compact();
+            if (n > in.capacity()) {
+                ByteBuffer bigger = ByteBuffer.allocate(2 * n);
+                in.flip();
+                bigger.put(in);
+                in = bigger;
+            }
+            eof = channel.read(in) < 0;
+            in.flip();
+        }
+        return in.remaining() >= n;
+    }
+
+    /*
+     * Read the next record, false at the end of the log. A record cut off
+     * at the end, as left by a crash, counts as the end.
+     */
+    private boolean next() throws IOException {
+        int need = 64;
+        while (true) {
+            if (!fill(need)) {
+                if (in.remaining() == 0) {
+                    return false;
+                }
+                need = in.remaining();      // the rest might still be a whole record
+            }
+            in.mark();
+            try {
+                readRecord();
+                return true;
+            } catch (BufferUnderflowException e) {
+                in.reset();
+                if (eof) {
+                    return false;
+                }
+                need = in.remaining() + 1024;
+            }
+        }
+    }
+
+    private void readRecord() {
+        recordTime = in.getDouble();
+        type = in.get();
+        entity = in.getInt();
+        packet = in.get() != 0 ? Packet.decode(in) : null;
+        draws = in.getShort();
+        if (draws > values.length) {
+            streams = new byte[draws];
+            values = new double[draws];
+        }
+        for (int i = 0; i < draws; i++) {
+            streams[i] = in.get();
+            values[i] = in.getDouble();
+        }
+        logged.rewind();
+    }
+
+    /*
+     * Hand the event just read to the student, false if it ends the
+     * simulation
+     */
+    private boolean dispatch() {
+        if (sim.traceLevel >= 2) {
+            sim.console.println();
+            sim.console.print("EVENT time: " + time);
+            sim.console.print("  type: " + type);
+            sim.console.println("  entity: " + entity);
+            StringBuilder s = new StringBuilder("  random draws:");
+            for (int i = 0; i < draws; i++) {
+                s.append(" [").append(streams[i]).append("] ").append(values[i]);
+            }
+            sim.console.println(s);
+        }
+
+        int flow = NetworkSimulator.flowOf(entity);
+        switch (type) {
+            case NetworkSimulator.TIMERINTERRUPT:
+                timers[entity] = null;
+                sim.aTimerInterrupt(flow);
+                break;
+
+            case NetworkSimulator.FROMLAYER3:
+                if (NetworkSimulator.isSender(entity)) {
+                    sim.aInput(flow, packet);
+                } else {
+                    sim.bInput(flow, packet);
+                }
+                break;
+
+            case NetworkSimulator.FROMLAYER5:
+                byte[] data = sim.nextMessageData();
+                if (data == null) {
+                    return false;
+                }
+                sim.aOutput(flow, new Message(data));
+                break;
+
+            default:
+                sim.console.println("INTERNAL PANIC: Unknown event type");
+        }
+        return true;
+    }
+
+    /*
+     * The draws of the record just read, handed out stream by stream in the
+     * order they were taken
+     */
+    private class Draws implements RandomStreams {
+        private final int[] next = new int[STREAMS];    // next draw to look at per stream
+
+        void rewind() {
+            Arrays.fill(next, 0);
+        }
+
+        public double nextDouble(int stream) {
+            for (int i = next[stream]; i < draws; i++) {
+                if (streams[i] == stream) {
+                    next[stream] = i + 1;
+                    return values[i];
+                }
+            }
+            throw new IllegalStateException("No draw from stream " + stream + " logged at time " + time +
+                    ", was " + path + " recorded with other channel, link or corruption models?");
+        }
+
+        public RandomStreams copy() {
+            throw new UnsupportedOperationException("Logged draws cannot be copied");
+        }
+
+        public RandomStreams split() {
+            throw new UnsupportedOperationException("Logged draws cannot be split");
+        }
+
+        public void writeTo(ByteBuffer out) {
+            throw new UnsupportedOperationException("Logged draws cannot be checkpointed");
+        }
+    }
+
+    /*
+     * Console before from. Skips formatting and encoding of what the
+     * student prints, which is most of the time spent replaying.
+     */
+    private static class Muted extends PrintStream {
+        Muted() {
+            super(OutputStream.nullOutputStream());
+        }
+
+        public void print(String s) {
+        }
+
+        public void print(Object obj) {
+        }
+
+        public void println() {
+        }
+
+        public void println(String x) {
+        }
+
+        public void println(Object x) {
+        }
+
+        public PrintStream printf(String format, Object... args) {
+            return this;
+        }
+
+        public PrintStream format(String format, Object... args) {
+            return this;
+        }
+    }
+
+    // NetworkSimulator routines while replaying
+
+    public Event startTimer(int entity, double increment) {
+        if (sim.traceLevel > 2) {
+            sim.console.println("startTimer: starting timer at " + time);
+        }
+        if (entity < 0 || entity >= timers.length) {
+            sim.console.println("startTimer: Warning: invalid entity");
+            return null;
+        }
+        if (timers[entity] != null) {
+            sim.console.println("startTimer: Warning: Attempting to start a " +
+                    "timer that is already running");
+            return timers[entity];
+        }
+        timers[entity] = new Event(time + increment, NetworkSimulator.TIMERINTERRUPT, entity);
+        return timers[entity];
+    }
+
+    public void stopTimer(int entity) {
+        if (sim.traceLevel > 2) {
+            sim.console.println("stopTimer: stopping timer at " + time);
+        }
+        if (entity < 0 || entity >= timers.length) {
+            sim.console.println("stopTimer: Warning: invalid entity");
+            return;
+        }
+        stopTimer(timers[entity]);
+    }
+
+    public void stopTimer(Event timer) {
+        if (timer == null || timers[timer.getEntity()] != timer) {
+            sim.console.println("stopTimer: Warning: Unable to cancel your " +
+                    "timer");
+            return;
+        }
+        timers[timer.getEntity()] = null;
+    }
+
+    public Event restartTimer(int entity, double increment) {
+        if (sim.traceLevel > 2) {
+            sim.console.println("restartTimer: restarting timer at " + time);
+        }
+        if (entity < 0 || entity >= timers.length) {
+            sim.console.println("restartTimer: Warning: invalid entity");
+            return null;
+        }
+        timers[entity] = new Event(time + increment, NetworkSimulator.TIMERINTERRUPT, entity);
+        return timers[entity];
+    }
+
+    public void toLayer3(int callingEntity, Packet p) {
+        // what became of p is in the log already, the models only trace it
+        if (sim.traceLevel > 2) {
+            sim.console.println("toLayer3: " + p);
+        }
+        if (!sim.isValidEntity(callingEntity)) {
+            sim.console.println("toLayer3: Warning: invalid packet sender");
+            return;
+        }
+        int destination = NetworkSimulator.isSender(callingEntity) ? callingEntity + 1 : callingEntity - 1;
+        int side = NetworkSimulator.side(destination);
+        double last = lastArrival[side] >= time ? lastArrival[side] : 0;
+        Event arrival = sim.transmit(destination, p, time, last, logged, true);
+        if (arrival != null) {
+            lastArrival[side] = Math.max(lastArrival[side], arrival.getTime());
+        }
+    }
+
+    public void toLayer5(byte[] dataSent) {
+        sim.write(dataSent);
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public void printEventList() {
+        sim.console.println("printEventList: no event list while replaying");
+    }
+}
@@ -0,0 +1,92 @@
+/***************************************************************************
+ * ClassName: GilbertElliottChannel
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Two-state Gilbert-Elliott channel. The link is either good
+ * or bad. Before each packet it goes from good to bad with probability p
+ * and from bad to good with probability r, then the packet is lost with
+ * probability k when good and h when bad. Losses come in bursts of 1/r
+ * packets on average, and a fraction p/(p+r) of the packets finds the
+ * link bad.
+ *
+ * "gilbert" on its own has bursts of 10 packets (r = 0.1, k = 0, h = 1)
+ * with p picked so that the average loss is the loss probability entered
+ * at startup, which makes it directly comparable to bernoulli.
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+
+public class GilbertElliottChannel implements ChannelModel {
+    private final double p;        // good to bad
+    private final double r;        // bad to good
+    private final double k;        // loss when good
+    private final double h;        // loss when bad
+    private boolean bad;
+
+    public GilbertElliottChannel(double p, double r, double k, double h) {
+        if (p < 0 || p > 1 || r < 0 || r > 1 || k < 0 || k > 1 || h < 0 || h > 1) {
+            throw new IllegalArgumentException("Gilbert-Elliott probabilities must be " +
+                    "in [0, 1]: p " + p + ", r " + r + ", k " + k + ", h " + h);
+        }
+        this.p = p;
+        this.r = r;
+        this.k = k;
+        this.h = h;
+    }
+
+    /**
+     * Bursts of 10 packets with an average loss of loss
+     */
+    public GilbertElliottChannel(double loss) {
+        this(Math.min(1, 0.1 * loss / (1 - loss)), 0.1, 0, 1);
+    }
+
+    /**
+     * Parse the "p,r[,k,h]" after "gilbert:", with the average loss loss
+     * when there is nothing to parse
+     */
+    public static GilbertElliottChannel parse(String args, double loss) {
+        if (args == null || args.isEmpty()) {
+            return new GilbertElliottChannel(loss);
+        }
+        String[] a = args.split(",");
+        if (a.length != 2 && a.length != 4) {
+            throw new IllegalArgumentException("Expected gilbert:p,r or gilbert:p,r,k,h " +
+                    "but got gilbert:" + args);
+        }
+        double[] v = new double[]{0, 0, 0, 1};
+        for (int i = 0; i < a.length; i++) {
+            v[i] = Double.parseDouble(a[i].trim());
+        }
+        return new GilbertElliottChannel(v[0], v[1], v[2], v[3]);
+    }
+
+    public boolean lost(RandomStreams random) {
+        double x = random.nextDouble(RandomStreams.LOSS);
+        bad = bad ? x >= r : x < p;
+        return random.nextDouble(RandomStreams.LOSS) < (bad ? h : k);
+    }
+
+    public ChannelModel copy() {
+        GilbertElliottChannel c = new GilbertElliottChannel(p, r, k, h);
+        c.bad = bad;
+        return c;
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.put(GILBERT_ELLIOTT);
+        out.put((byte) (bad ? 1 : 0));
+    }
+
+    public void readFrom(ByteBuffer in) {
+        if (in.get() != GILBERT_ELLIOTT) {
+            throw new IllegalStateException("Saved with another channel model than gilbert");
+        }
+        bad = in.get() != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "gilbert p " + p + ", r " + r + ", k " + k + ", h " + h;
+    }
+}
@@ -0,0 +1,239 @@
+/***************************************************************************
+ * ClassName: HeapEventList
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Binary min-heap implementation of EventList keyed on event
+ * time. Events with the same time are dispatched in the order they were
+ * added, which is the order EventListImpl picks them from its vector, so a
+ * given seed produces the same run with either implementation.
+ * add and removeNext are O(log n) instead of a full scan of the list.
+ * Every event knows its heap slot, so remove and reschedule of a known
+ * event (e.g. a running timer) are O(log n) as well. The latest packet
+ * arrival scheduled for each entity is remembered, which makes
+ * getLastPacketTime O(1).
+ ****************************************************************************/
+
+import java.util.Arrays;
+
+public class HeapEventList implements EventList {
+    private Event[] heap;
+    private long[] order;       // insertion stamp of heap[i], breaks time ties FIFO
+    private int size;
+    private long nextOrder;
+    private Event[] lastArrival;    // latest FROMLAYER3 event added per entity
+
+    public HeapEventList() {
+        this(64);
+    }
+
+    public HeapEventList(int capacity) {
+        if (capacity < 1) capacity = 1;
+        this.heap = new Event[capacity];
+        this.order = new long[capacity];
+        this.size = 0;
+        this.nextOrder = 0;
+        this.lastArrival = new Event[2];
+    }
+
+    public boolean add(Event e) {
+        if (size == heap.length) grow();
+        heap[size] = e;
+        order[size] = nextOrder++;
+        e.slot = size;
+        siftUp(size);
+        ++size;
+        if (e.getType() == NetworkSimulator.FROMLAYER3) arrivalAdded(e);
+        return true;
+    }
+
+    public Event removeNext() {
+        if (size == 0) {
+            return null;
+        }
+        return removeAt(0);
+    }
+
+    public String toString() {
+        Integer[] index = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            index[i] = i;
+        }
+        Arrays.sort(index, (i, j) -> less(i, j) ? -1 : (less(j, i) ? 1 : 0));
+        Event[] sorted = new Event[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = heap[index[i]];
+        }
+        return Arrays.toString(sorted);
+    }
+
+    public Event removeTimer(int entity) {
+        int timerIndex = -1;
+        for (int i = 0; i < size; i++) {
+            if (heap[i].getType() == NetworkSimulator.TIMERINTERRUPT &&
+                    heap[i].getEntity() == entity &&
+                    (timerIndex == -1 || order[i] < order[timerIndex])) {
+                timerIndex = i;
+            }
+        }
+        if (timerIndex == -1) {
+            return null;
+        }
+        return removeAt(timerIndex);
+    }
+
+    /**
+     * Arrivals to one entity are scheduled in increasing time order, so the
+     * latest arrival is also the one EventListImpl finds last in its vector.
+     * Once it has been dispatched no arrival for the entity is left.
+     */
+    public double getLastPacketTime(int entityTo) {
+        if (entityTo < 0 || entityTo >= lastArrival.length) {
+            return 0;
+        }
+        Event last = lastArrival[entityTo];
+        return last != null && isArrival(last, entityTo) ? last.getTime() : 0;
+    }
+
+    public boolean remove(Event e) {
+        if (!contains(e)) {
+            return false;
+        }
+        removeAt(e.slot);
+        if (e.getType() == NetworkSimulator.FROMLAYER3) arrivalMoved(e);
+        return true;
+    }
+
+    /**
+     * Moves the key of e in place. The event gets a new insertion stamp,
+     * exactly like removing it and adding it again would.
+     */
+    public boolean reschedule(Event e, double time) {
+        if (!contains(e)) {
+            return false;
+        }
+        int index = e.slot;
+        e.setTime(time);
+        order[index] = nextOrder++;
+        if (index > 0 && less(index, (index - 1) / 2)) {
+            siftUp(index);
+        } else {
+            siftDown(index);
+        }
+        if (e.getType() == NetworkSimulator.FROMLAYER3) arrivalMoved(e);
+        return true;
+    }
+
+    private boolean contains(Event e) {
+        return e.slot >= 0 && e.slot < size && heap[e.slot] == e;
+    }
+
+    /*
+     * Whether e is still queued as an arrival for entity. A pooled event
+     * can come back as something else after it was dispatched.
+     */
+    private boolean isArrival(Event e, int entity) {
+        return contains(e) && e.getType() == NetworkSimulator.FROMLAYER3 &&
+                e.getEntity() == entity;
+    }
+
+    private void arrivalAdded(Event e) {
+        int entity = e.getEntity();
+        if (entity < 0) return;
+        if (entity >= lastArrival.length) {
+            lastArrival = Arrays.copyOf(lastArrival, Math.max(entity + 1, lastArrival.length * 2));
+        }
+        Event last = lastArrival[entity];
+        if (last == null || !isArrival(last, entity) || e.getTime() >= last.getTime()) {
+            lastArrival[entity] = e;
+        }
+    }
+
+    /*
+     * An arrival was taken out or moved without being dispatched. That
+     * never happens in the simulator, so finding the new latest one with
+     * a scan is fine.
+     */
+    private void arrivalMoved(Event e) {
+        int entity = e.getEntity();
+        if (entity < 0 || entity >= lastArrival.length) return;
+        int latest = -1;
+        for (int i = 0; i < size; i++) {
+            if (heap[i].getType() == NetworkSimulator.FROMLAYER3 &&
+                    heap[i].getEntity() == entity &&
+                    (latest == -1 || heap[i].getTime() > heap[latest].getTime() ||
+                            (heap[i].getTime() == heap[latest].getTime() && order[i] > order[latest]))) {
+                latest = i;
+            }
+        }
+        lastArrival[entity] = latest == -1 ? null : heap[latest];
+    }
+
+    /*
+     * Remove heap[index] by moving the last entry into its slot and
+     * restoring the heap order in whichever direction it was broken
+     */
+    private Event removeAt(int index) {
+        Event removed = heap[index];
+        removed.slot = -1;
+        --size;
+        if (index != size) {
+            heap[index] = heap[size];
+            order[index] = order[size];
+            heap[index].slot = index;
+            heap[size] = null;
+            if (index > 0 && less(index, (index - 1) / 2)) {
+                siftUp(index);
+            } else {
+                siftDown(index);
+            }
+        } else {
+            heap[size] = null;
+        }
+        return removed;
+    }
+
+    private boolean less(int i, int j) {
+        double ti = heap[i].getTime();
+        double tj = heap[j].getTime();
+        return ti < tj || (ti == tj && order[i] < order[j]);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!less(index, parent)) break;
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) break;
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && less(right, left)) smallest = right;
+            if (!less(smallest, index)) break;
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Event e = heap[i];
+        heap[i] = heap[j];
+        heap[j] = e;
+        heap[i].slot = i;
+        heap[j].slot = j;
+        long o = order[i];
+        order[i] = order[j];
+        order[j] = o;
+    }
+
+    private void grow() {
+        int capacity = heap.length * 2;
+        heap = Arrays.copyOf(heap, capacity);
+        order = Arrays.copyOf(order, capacity);
+    }
+}
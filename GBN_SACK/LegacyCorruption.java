@@ -0,0 +1,56 @@
+/***************************************************************************
+ * ClassName: LegacyCorruption
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: The corruption the simulator always had, whatever the size
+ * of the packet. A corrupted packet has the first character of its
+ * payload replaced by '?' (3 in 4), or its seqnum (1 in 8) or acknum
+ * (1 in 8) set to 999999.
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+
+public class LegacyCorruption implements CorruptionModel {
+    private final double probability;
+
+    public LegacyCorruption(double probability) {
+        this.probability = probability;
+    }
+
+    public Packet corrupt(Packet packet, RandomStreams r) {
+        if (r.nextDouble(RandomStreams.CORRUPT) >= probability) {
+            return packet;
+        }
+
+        double x = r.nextDouble(RandomStreams.CORRUPTION);
+        if (x < 0.75) {
+            byte[] payload = packet.getPayload();
+            payload = payload.length > 0 ? payload.clone() : new byte[1];
+            payload[0] = '?';
+            return packet.withPayload(payload);
+        } else if (x < 0.875) {
+            return packet.withSeqnum(999999);
+        } else {
+            return packet.withAcknum(999999);
+        }
+    }
+
+    // No state to copy
+    public CorruptionModel copy() {
+        return this;
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.put(LEGACY);
+    }
+
+    public void readFrom(ByteBuffer in) {
+        if (in.get() != LEGACY) {
+            throw new IllegalStateException("Saved with another corruption model than legacy");
+        }
+    }
+
+    public String report() {
+        return null;
+    }
+}
@@ -0,0 +1,68 @@
+/***************************************************************************
+ * ClassName: LinkModel
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Decides when a packet put on a link arrives at the other
+ * end. Like ChannelModel, each direction has a model of its own, shared
+ * by all flows, chosen at startup:
+ *
+ *     -Dlink=spec          both directions
+ *     -Dlink.ab=spec       A to B only, overrides -Dlink
+ *     -Dlink.ba=spec       B to A only, overrides -Dlink
+ *
+ * where spec is one of
+ *
+ *     uniform                      1 to 10 time units after the last packet
+ *                                  on the link (the default)
+ *     bottleneck[:b,d,q]           BottleneckLink with bandwidth b bytes per
+ *                                  time unit, propagation delay d and a
+ *                                  drop-tail queue of q packets
+ *     red[:b,d,q[,min,max,p,w]]    the same with a RED queue
+ *     trace:file[,stop]            TraceLink, loss and delay of every
+ *                                  packet from a recorded trace
+ *     reorder[:p,d[,exp]]          ReorderLink, uniform with a fraction p
+ *                                  of the packets held back by up to d
+ *
+ * The channel model loses packets before they get to the link.
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+
+public interface LinkModel {
+    // Checkpoint tags of the implementations
+    byte UNIFORM = 0;
+    byte BOTTLENECK = 1;
+    byte TRACE = 2;
+    byte REORDER = 3;
+
+    /**
+     * Arrival time at the other end of p, put on the link at now, or -1 if
+     * the link drops it. lastArrival is the latest arrival still scheduled
+     * at the other end, 0 if none. Draws from the DELAY stream of r only.
+     */
+    double arrival(Packet p, double now, double lastArrival, RandomStreams r);
+
+    /**
+     * Smallest time any packet spends on the link, the lookahead of the
+     * conservative engine
+     */
+    double minDelay();
+
+    /**
+     * A model in the same state that goes on independently
+     */
+    LinkModel copy();
+
+    /**
+     * Checkpointed state, read back by readFrom into a model of the same
+     * kind
+     */
+    void writeTo(ByteBuffer out);
+
+    void readFrom(ByteBuffer in);
+
+    /**
+     * What happened on the link by time end, null if nothing to report
+     */
+    String report(double end);
+}
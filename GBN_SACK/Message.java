@@ -1,30 +1,33 @@
 public class Message {
-    private String data;
+    private static final byte[] EMPTY = new byte[0];
 
-    public Message(String inputData) {
+    // Not copied: whoever hands data in must leave it alone after
+    private byte[] data;
+
+    public Message(byte[] inputData) {
         if (inputData == null) {
-            data = "";
-        } else if (inputData.length() > NetworkSimulator.MAXDATASIZE) {
-            data = "";
+            data = EMPTY;
+        } else if (inputData.length > NetworkSimulator.MAXDATASIZE) {
+            data = EMPTY;
         } else {
-            data = new String(inputData);
+            data = inputData;
         }
     }
 
-    public boolean setData(String inputData) {
+    public boolean setData(byte[] inputData) {
         if (inputData == null) {
-            data = "";
+            data = EMPTY;
             return false;
-        } else if (inputData.length() > NetworkSimulator.MAXDATASIZE) {
-            data = "";
+        } else if (inputData.length > NetworkSimulator.MAXDATASIZE) {
+            data = EMPTY;
             return false;
         } else {
-            data = new String(inputData);
+            data = inputData;
             return true;
         }
     }
 
-    public String getData() {
+    public byte[] getData() {
         return data;
     }
 }
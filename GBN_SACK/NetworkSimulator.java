@@ -1,11 +1,19 @@
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Vector;
 import java.util.Enumeration;
 import java.io.*;
 
 public abstract class NetworkSimulator {
     // This constant controls the maximum size of the buffer in a Message
-    // and in a Packet
-    public static final int MAXDATASIZE = 20;
+    // and in a Packet, and every layer 5 message is this long. It is 20
+    // bytes unless set with -Dmtu=bytes, up to the 65534 the length field
+    // of the wire format holds, to compare goodput across packet sizes.
+    public static final int MAXDATASIZE = maxDataSize();
 
     // These constants are possible events
     public static final int TIMERINTERRUPT = 0;
@@ -16,15 +24,68 @@ public abstract class NetworkSimulator {
     public static final int A = 0;
     public static final int B = 1;
 
+    // With -Dflows=N there are N sender/receiver pairs. Flow f sends from
+    // entity sender(f) = 2f to entity receiver(f) = 2f + 1, so flow 0 is
+    // A to B. All flows share one link in each direction, from the senders
+    // on the A side to the receivers on the B side and back, so their
+    // packets are lost, delayed and queued together.
+    public static int sender(int flow) {
+        return 2 * flow;
+    }
+
+    public static int receiver(int flow) {
+        return 2 * flow + 1;
+    }
+
+    public static int flowOf(int entity) {
+        return entity >> 1;
+    }
+
+    public static boolean isSender(int entity) {
+        return (entity & 1) == 0;
+    }
+
+    // The side of entity, A for senders and B for receivers, which is
+    // also the index of the link into it
+    static int side(int entity) {
+        return isSender(entity) ? A : B;
+    }
+
     private int maxMessages;
     private double lossProb;
     private double corruptProb;
     private double avgMessageDelay;
     protected int traceLevel;
+    private int numFlows;
     private EventList eventList;
-    private FileWriter outFile;
-
-    private OSIRandom rand;
+    private Event[] timers;     // running timer of each entity, null if none
+    private OutputStream outFile;
+    private long outputBytes;   // written to outFile so far
+    protected PrintStream console;  // where the simulator and the student print
+    private ParallelEngine parallel;    // set while -Dengine=conservative|timewarp or -Dreplay runs
+
+    // Pooled mode (-Dpooled=true) recycles events, the packets they carry
+    // and the layer 5 message once they are dispatched. Packets and
+    // messages handed to the student are then only valid during the call
+    // and have to be copied to be kept.
+    private boolean pooled;
+    private EventPool pool;
+    private Message message;
+    private byte[][] payloads;  // the 26 possible layer 5 messages
+
+    // Arena mode (-Darena=true) keeps the packets of events in flight, and
+    // those the student buffers through getArena, in a PacketArena off the
+    // heap. The sequential engine only, the arena is not thread safe.
+    private PacketArena arena;
+
+    private RandomStreams rand;
+    private BlockRandom blocks;     // rand while -Drandom.block is set
+    private ChannelModel[] channels;    // loss on the link into each side
+    private LinkModel[] links;          // delay on the link into each side
+    private CorruptionModel[] corruptions;  // corruption on the link into each side
+    private double[] lastArrival;       // latest arrival put on the link into each side
+    private String models;              // their specs, A to B / B to A
+    private int seed;
 
     private int nSim;
     private int nToLayer3;
@@ -47,23 +108,149 @@ public abstract class NetworkSimulator {
 
     protected abstract void Simulation_done();
 
+    /*
+     * The same routines for one flow. Simulators with more than one flow
+     * override these, by default flow 0 goes to the routines above.
+     */
+    protected void aOutput(int flow, Message message) {
+        singleFlow(flow);
+        aOutput(message);
+    }
+
+    protected void aInput(int flow, Packet packet) {
+        singleFlow(flow);
+        aInput(packet);
+    }
+
+    protected void aTimerInterrupt(int flow) {
+        singleFlow(flow);
+        aTimerInterrupt();
+    }
+
+    protected void aInit(int flow) {
+        singleFlow(flow);
+        aInit();
+    }
+
+    protected void bInput(int flow, Packet packet) {
+        singleFlow(flow);
+        bInput(packet);
+    }
+
+    protected void bInit(int flow) {
+        singleFlow(flow);
+        bInit();
+    }
+
+    private void singleFlow(int flow) {
+        if (flow != 0) {
+            throw new UnsupportedOperationException(getClass().getName() +
+                    " only simulates a single flow");
+        }
+    }
+
+    /*
+     * The Time Warp engine runs events speculatively and has to undo them.
+     * It saves the state of an entity before every event and restores it
+     * when rolling back. Simulators meant to run on it override both; the
+     * saved state must not change when the entity goes on.
+     */
+    protected Object saveState(int entity) {
+        throw new UnsupportedOperationException(getClass().getName() +
+                " cannot save its state");
+    }
+
+    protected void restoreState(int entity, Object state) {
+        throw new UnsupportedOperationException(getClass().getName() +
+                " cannot restore its state");
+    }
+
+    /*
+     * Checkpoints (-Dcheckpoint) hold the state of the student's protocol
+     * along with the simulator's. Simulators that can be checkpointed
+     * override both, readState reads back what writeState wrote.
+     */
+    protected void writeState(ByteBuffer out) {
+        throw new UnsupportedOperationException(getClass().getName() +
+                " cannot be checkpointed");
+    }
+
+    protected void readState(ByteBuffer in) {
+        throw new UnsupportedOperationException(getClass().getName() +
+                " cannot be restored from a checkpoint");
+    }
+
     public NetworkSimulator(int numMessages,
                             double loss,
                             double corrupt,
                             double avgDelay,
                             int trace,
                             int seed) {
+        this(numMessages, loss, corrupt, avgDelay, trace, seed,
+                openOutputFile(), System.out);
+    }
+
+    /*
+     * Same as above, but layer 5 data goes to output and everything printed
+     * goes to console instead of OutputFile and stdout, so that several
+     * simulators can run side by side in one JVM
+     */
+    public NetworkSimulator(int numMessages,
+                            double loss,
+                            double corrupt,
+                            double avgDelay,
+                            int trace,
+                            int seed,
+                            OutputStream output,
+                            PrintStream console) {
         maxMessages = numMessages;
         lossProb = loss;
         corruptProb = corrupt;
         avgMessageDelay = avgDelay;
         traceLevel = trace;
-        eventList = new EventListImpl();
-        rand = new OSIRandom(seed);
-        try {
-            outFile = new FileWriter("OutputFile");
-        } catch (Exception e) {
-            e.printStackTrace();
+        outFile = output;
+        this.console = console;
+        numFlows = Integer.getInteger("flows", 1);
+        if (numFlows < 1) {
+            throw new IllegalArgumentException("flows must be > 0");
+        }
+        timers = new Event[2 * numFlows];
+        String channel = System.getProperty("channel", "bernoulli");
+        String channelAB = System.getProperty("channel.ab", channel);
+        String channelBA = System.getProperty("channel.ba", channel);
+        channels = new ChannelModel[2];
+        channels[B] = newChannel(channelAB);
+        channels[A] = newChannel(channelBA);
+        String link = System.getProperty("link", "uniform");
+        String linkAB = System.getProperty("link.ab", link);
+        String linkBA = System.getProperty("link.ba", link);
+        links = new LinkModel[2];
+        links[B] = newLink(linkAB);
+        links[A] = newLink(linkBA);
+        String corruption = System.getProperty("corruption", "legacy");
+        String corruptionAB = System.getProperty("corruption.ab", corruption);
+        String corruptionBA = System.getProperty("corruption.ba", corruption);
+        corruptions = new CorruptionModel[2];
+        corruptions[B] = newCorruption(corruptionAB);
+        corruptions[A] = newCorruption(corruptionBA);
+        models = "channel " + channelAB + " / " + channelBA + ", link " + linkAB + " / " + linkBA +
+                ", corruption " + corruptionAB + " / " + corruptionBA;
+        lastArrival = new double[2];
+        rand = precompute(newRandom(System.getProperty("random", "legacy"), seed));
+        this.seed = seed;
+        pooled = Boolean.getBoolean("pooled");
+        if (pooled) {
+            pool = new EventPool();
+            message = new Message(null);
+            payloads = new byte[26][MAXDATASIZE];
+            for (int i = 0; i < payloads.length; i++) {
+                Arrays.fill(payloads[i], (byte) (i + 97));
+            }
+        }
+        eventList = newEventList(System.getProperty("eventlist", "heap"));
+        if (Boolean.getBoolean("arena")) {
+            // a full payload and the 5 sacks of an ACK, the largest packet there is
+            arena = new PacketArena(Packet.HEADER + MAXDATASIZE + 4 * 5);
         }
 
         nSim = 0;
@@ -73,16 +260,88 @@ public abstract class NetworkSimulator {
         time = 0;
     }
 
+    private static int maxDataSize() {
+        int size = Integer.getInteger("mtu", 20);
+        if (size < 1 || size > 65534) {
+            throw new IllegalArgumentException("mtu must be in [1, 65534]: " + size);
+        }
+        return size;
+    }
+
+    private static OutputStream openOutputFile() {
+        try {
+            // When resuming from a checkpoint, keep the output up to it
+            String restore = System.getProperty("restore");
+            if (restore != null) {
+                long length = Checkpoint.read(Paths.get(restore)).getLong();
+                try (RandomAccessFile file = new RandomAccessFile("OutputFile", "rw")) {
+                    file.setLength(length);
+                }
+                return new BufferedOutputStream(new FileOutputStream("OutputFile", true));
+            }
+            return new BufferedOutputStream(new FileOutputStream("OutputFile"));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
     public void runSimulator() {
         Event next;
+        String restore = System.getProperty("restore");
+        String save = System.getProperty("checkpoint");
+        String record = System.getProperty("record");
+        String replay = System.getProperty("replay");
+
+        // -Dengine=conservative|timewarp runs A and B on two threads instead,
+        // -Dreplay=file runs the events of a recorded run again
+        if (replay != null) {
+            parallel = new EventReplay(this, Paths.get(replay));
+        } else {
+            parallel = newEngine(System.getProperty("engine", "sequential"),
+                    restore != null || save != null || record != null);
+        }
+        if (parallel != null) {
+            pooled = false;     // the pool is not thread safe
+            arena = null;       // neither is the arena
+            time = parallel.run();
+            parallel = null;
+            finish();
+            return;
+        }
 
-        // Perform any student-required initialization
-        aInit();
-        bInit();
+        if (restore != null) {
+            // Carry on from where the checkpoint was taken
+            restore(Checkpoint.read(Paths.get(restore)));
+        }
+
+        // -Drecord=file logs every event and the random numbers it used
+        EventRecorder recorder = null;
+        if (record != null) {
+            recorder = new EventRecorder(Paths.get(record), maxMessages, lossProb,
+                    corruptProb, avgMessageDelay, numFlows, seed, models);
+            rand = recorder.watch(rand);
+        }
+
+        if (restore == null) {
+            // Perform any student-required initialization
+            for (int flow = 0; flow < numFlows; flow++) {
+                aInit(flow);
+                bInit(flow);
+            }
+
+            // Start the whole thing off by scheduling some data arrival
+            // from layer 5 for every flow
+            for (int flow = 0; flow < numFlows; flow++) {
+                generateNextArrival(flow);
+            }
+        }
 
-        // Start the whole thing off by scheduling some data arrival
-        // from layer 5
-        generateNextArrival();
+        // -Dcheckpoint=file saves the simulation every
+        // -Dcheckpoint.every=n events
+        Checkpoint checkpoint = save == null ? null : new Checkpoint(Paths.get(save));
+        long every = Long.getLong("checkpoint.every", 1000000);
+        long dispatched = 0;
 
         // Begin the main loop
         while (true) {
@@ -91,36 +350,45 @@ public abstract class NetworkSimulator {
             if (next == null) {
                 break;
             }
+            if (recorder != null) {
+                recorder.event(next);
+            }
 
             if (traceLevel >= 2) {
-                System.out.println();
-                System.out.print("EVENT time: " + next.getTime());
-                System.out.print("  type: " + next.getType());
-                System.out.println("  entity: " + next.getEntity());
+                console.println();
+                console.print("EVENT time: " + next.getTime());
+                console.print("  type: " + next.getType());
+                console.println("  entity: " + next.getEntity());
             }
 
             // Advance the simulator's time
             time = next.getTime();
 
             // Perform the appropriate action based on the event 
+            int entity = next.getEntity();
             switch (next.getType()) {
                 case TIMERINTERRUPT:
-                    if (next.getEntity() == A) {
-                        aTimerInterrupt();
+                    // a list that copies events returns a copy of the timer
+                    if (pooled && timers[entity] != null && timers[entity] != next) {
+                        pool.release(timers[entity]);
+                    }
+                    timers[entity] = null;
+                    if (isSender(entity)) {
+                        aTimerInterrupt(flowOf(entity));
                     } else {
-                        System.out.println("INTERNAL PANIC: Timeout for " +
+                        console.println("INTERNAL PANIC: Timeout for " +
                                 "invalid entity");
                     }
                     break;
 
                 case FROMLAYER3:
-                    if (next.getEntity() == A) {
-                        aInput(next.getPacket());
-                    } else if (next.getEntity() == B) {
-                        bInput(next.getPacket());
-                    } else {
-                        System.out.println("INTERNAL PANIC: Packet has " +
+                    if (!isValidEntity(entity)) {
+                        console.println("INTERNAL PANIC: Packet has " +
                                 "arrived for unknown entity");
+                    } else if (isSender(entity)) {
+                        aInput(flowOf(entity), next.getPacket());
+                    } else {
+                        bInput(flowOf(entity), next.getPacket());
                     }
 
                     break;
@@ -129,35 +397,201 @@ public abstract class NetworkSimulator {
 
                     // If a message has arrived from layer 5, we need to
                     // schedule the arrival of the next message
-                    generateNextArrival();
-
-                    char[] nextMessage = new char[MAXDATASIZE];
+                    generateNextArrival(flowOf(entity));
 
                     // Now, let's generate the contents of this message
-                    char j = (char) ((nSim % 26) + 97);
-                    for (int i = 0; i < MAXDATASIZE; i++) {
-                        nextMessage[i] = j;
-                    }
-
-                    // Increment the message counter
-                    nSim++;
+                    byte[] data = nextMessageData();
 
                     // If we've reached the maximum message count, exit the main loop
-                    if (nSim == maxMessages + 1)
+                    if (data == null)
                         break;
 
                     // Let the student handle the new message
-                    aOutput(new Message(new String(nextMessage)));
+                    if (pooled) {
+                        message.setData(data);
+                        aOutput(flowOf(entity), message);
+                    } else {
+                        aOutput(flowOf(entity), new Message(data));
+                    }
                     break;
 
                 default:
-                    System.out.println("INTERNAL PANIC: Unknown event type");
+                    console.println("INTERNAL PANIC: Unknown event type");
             }
             if (nSim == maxMessages + 1)
                 break;
+
+            // Nobody holds on to a dispatched event
+            next.drop();
+            if (pooled) {
+                pool.release(next);
+            }
+
+            if (checkpoint != null && ++dispatched % every == 0) {
+                checkpoint(checkpoint);
+            }
+        }
+        if (checkpoint != null) {
+            checkpoint.close();
+        }
+        if (recorder != null) {
+            recorder.close();
+        }
+        finish();
+    }
+
+    /*
+     * Take a checkpoint between two events. The event list has no way to
+     * list its events, so it is emptied and refilled in the same order.
+     * Timer handles the student kept from before may not be valid after.
+     */
+    private void checkpoint(Checkpoint checkpoint) {
+        try {
+            outFile.flush();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        List<Event> events = new ArrayList<>();
+        for (Event e = eventList.removeNext(); e != null; e = eventList.removeNext()) {
+            events.add(e);
+        }
+
+        ByteBuffer out = checkpoint.begin();
+        while (true) {
+            try {
+                writeCheckpoint(out, events);
+                break;
+            } catch (BufferOverflowException e) {
+                out = checkpoint.grow(out);
+            }
+        }
+        checkpoint.commit(out);
+
+        // in pooled mode adding may recycle the events, so they are written first
+        for (Event e : events) {
+            boolean timer = e.getType() == TIMERINTERRUPT;
+            int entity = e.getEntity();
+            if (timer && pooled && timers[entity] != null && timers[entity] != e) {
+                pool.release(timers[entity]);
+            }
+            eventList.add(e);
+            if (timer) {
+                timers[entity] = e;
+            }
+        }
+    }
+
+    private void writeCheckpoint(ByteBuffer out, List<Event> events) {
+        out.putLong(outputBytes);
+        out.putInt(maxMessages).putDouble(lossProb).putDouble(corruptProb)
+                .putDouble(avgMessageDelay).putInt(numFlows).putInt(MAXDATASIZE);
+        out.putDouble(time).putInt(nSim).putInt(nToLayer3).putInt(nLost).putInt(nCorrupt);
+        rand.writeTo(out);
+        for (ChannelModel c : channels) {
+            c.writeTo(out);
+        }
+        for (LinkModel l : links) {
+            l.writeTo(out);
+        }
+        for (CorruptionModel c : corruptions) {
+            c.writeTo(out);
+        }
+        out.putInt(events.size());
+        for (Event e : events) {
+            out.putDouble(e.getTime()).putInt(e.getType()).putInt(e.getEntity());
+            Packet p = e.getPacket();
+            out.put((byte) (p == null ? 0 : 1));
+            if (p != null) {
+                p.encode(out);
+            }
+        }
+        writeState(out);
+    }
+
+    // Whether a checkpoint or log was written by a run with these parameters
+    void checkParameters(int messages, double loss, double corrupt, double avgDelay, int flows,
+                         int mtu) {
+        if (messages != maxMessages || loss != lossProb || corrupt != corruptProb ||
+                avgDelay != avgMessageDelay || flows != numFlows || mtu != MAXDATASIZE) {
+            throw new IllegalStateException("Saved by a run with other simulation " +
+                    "parameters: " + messages + " messages, loss " + loss + ", corruption " +
+                    corrupt + ", delay " + avgDelay + ", " + flows + " flows, mtu " + mtu);
+        }
+    }
+
+    /*
+     * Replaying a log only gives the packets sent the fates, and the link
+     * reports the numbers, of the recorded run if the models are the same
+     */
+    void checkModels(String recorded) {
+        if (!recorded.equals(models)) {
+            throw new IllegalStateException("Recorded with other models: " + recorded +
+                    ", not " + models);
+        }
+    }
+
+    // Read back what writeCheckpoint wrote
+    private void restore(ByteBuffer in) {
+        outputBytes = in.getLong();
+        checkParameters(in.getInt(), in.getDouble(), in.getDouble(), in.getDouble(), in.getInt(),
+                in.getInt());
+        time = in.getDouble();
+        nSim = in.getInt();
+        nToLayer3 = in.getInt();
+        nLost = in.getInt();
+        nCorrupt = in.getInt();
+        if (blocks != null) {
+            blocks.close();
+        }
+        rand = precompute(RandomStreams.readFrom(in));
+        for (ChannelModel c : channels) {
+            c.readFrom(in);
+        }
+        for (LinkModel l : links) {
+            l.readFrom(in);
+        }
+        for (CorruptionModel c : corruptions) {
+            c.readFrom(in);
+        }
+        int events = in.getInt();
+        for (int i = 0; i < events; i++) {
+            double t = in.getDouble();
+            int type = in.getInt();
+            int entity = in.getInt();
+            Packet p = in.get() != 0 ? Packet.decode(in) : null;
+            Event e = newEvent(t, type, entity, p);
+            if (type == FROMLAYER3) {
+                lastArrival[side(entity)] = Math.max(lastArrival[side(entity)], t);
+            }
+            eventList.add(e);
+            if (type == TIMERINTERRUPT) {
+                timers[entity] = e;
+            }
         }
-        System.out.println("Simulator terminated at time " + getTime());
+        readState(in);
+    }
+
+    private void finish() {
+        console.println("Simulator terminated at time " + getTime());
         Simulation_done();
+        for (int side = A; side <= B; side++) {
+            String direction = side == A ? "B to A" : "A to B";
+            String report = links[side].report(getTime());
+            if (report != null) {
+                console.println("Link " + direction + ": " + report);
+            }
+            report = corruptions[side].report();
+            if (report != null) {
+                console.println("Corruption " + direction + ": " + report);
+            }
+        }
+        if (arena != null) {
+            console.println("Packet arena: " + arena.report());
+        }
+        if (blocks != null) {
+            blocks.close();
+        }
         try {
             outFile.flush();
             outFile.close();
@@ -166,22 +600,22 @@ public abstract class NetworkSimulator {
         }
     }
 
-    /* Generate the next arrival and add it to the event list */
-    private void generateNextArrival() {
+    /* Generate the next arrival of flow and add it to the event list */
+    private void generateNextArrival(int flow) {
         if (traceLevel > 2) {
-            System.out.println("generateNextArrival(): called");
+            console.println("generateNextArrival(): called");
         }
 
         // arrival time 'x' is uniform on [0, 2*avgMessageDelay]
         // having mean of avgMessageDelay.  Should this be made
         // into a Gaussian distribution? 
-        double x = 2 * avgMessageDelay * rand.nextDouble(0);
-        Event next = new Event(time + x, FROMLAYER5, A);
+        double x = nextArrivalGap();
+        Event next = newEvent(time + x, FROMLAYER5, sender(flow), null);
 
         eventList.add(next);
         if (traceLevel > 2) {
-            System.out.println("generateNextArrival(): time is " + time);
-            System.out.println("generateNextArrival(): future time for " +
+            console.println("generateNextArrival(): time is " + time);
+            console.println("generateNextArrival(): future time for " +
                     "event " + next.getType() + " at entity " +
                     next.getEntity() + " will be " +
                     next.getTime());
@@ -189,132 +623,510 @@ public abstract class NetworkSimulator {
 
     }
 
+    // arrival time 'x' is uniform on [0, 2*avgMessageDelay]
+    double nextArrivalGap() {
+        return nextArrivalGap(rand);
+    }
+
+    double nextArrivalGap(RandomStreams r) {
+        return 2 * avgMessageDelay * r.nextDouble(RandomStreams.ARRIVAL);
+    }
+
+    // Messages handed out so far, for engines that roll back
+    int messagesGenerated() {
+        return nSim;
+    }
+
+    void setMessagesGenerated(int n) {
+        nSim = n;
+    }
+
+    /*
+     * Generator for engines where each entity draws for its own link
+     * instead of sharing rand. A takes over the streams of rand, including
+     * stream 0 for layer 5 arrivals, and B gets streams of its own.
+     */
+    RandomStreams linkRandom(int entity) {
+        return entity == A ? rand.copy() : rand.split();
+    }
+
+    /*
+     * Contents of the next layer 5 message, null once maxMessages have
+     * been handed out and the simulation is over
+     */
+    byte[] nextMessageData() {
+        byte[] data;
+        if (pooled) {
+            data = payloads[nSim % 26];
+        } else {
+            // the only copy of the message, passed on by reference down to write
+            data = new byte[MAXDATASIZE];
+            Arrays.fill(data, (byte) ((nSim % 26) + 97));
+        }
+
+        // Increment the message counter
+        nSim++;
+
+        return nSim == maxMessages + 1 ? null : data;
+    }
+
+    /*
+     * Time of the layer 5 arrival that ends the simulation. Arrival times
+     * only depend on stream 0 of rand, so they can be replayed from a copy
+     * before the run starts.
+     */
+    double stopTime() {
+        RandomStreams replay = rand.copy();
+        double t = 0;
+        for (int i = 0; i <= maxMessages; i++) {
+            double x = 2 * avgMessageDelay * replay.nextDouble(RandomStreams.ARRIVAL);
+            t = t + x;
+        }
+        return t;
+    }
+
+    private ParallelEngine newEngine(String kind, boolean checkpoints) {
+        if ((numFlows > 1 || checkpoints) && !kind.equals("sequential")) {
+            console.println("Engine \"" + kind + "\" runs a single flow " +
+                    "without checkpoints or logs, running sequentially");
+            return null;
+        }
+        if (kind.equals("conservative") && minLinkDelay() <= 0) {
+            console.println("Engine \"conservative\" needs links with a " +
+                    "delay, running sequentially");
+            return null;
+        }
+        switch (kind) {
+            case "sequential":
+                return null;
+            case "conservative":
+                return new ConservativeEngine(this);
+            case "timewarp":
+                return new TimeWarpEngine(this);
+            default:
+                console.println("Unknown engine \"" + kind +
+                        "\", running sequentially");
+                return null;
+        }
+    }
+
+    /*
+     * Pick the random number generator, chosen at startup with
+     * -Drandom=legacy|xoshiro
+     */
+    private RandomStreams newRandom(String kind, int seed) {
+        switch (kind) {
+            case "xoshiro":
+                return new XoshiroRandom(seed);
+            case "legacy":
+                return new OSIRandom(seed);
+            default:
+                console.println("Unknown random generator \"" + kind +
+                        "\", using legacy");
+                return new OSIRandom(seed);
+        }
+    }
+
+    /*
+     * Loss model of one link, chosen at startup with -Dchannel,
+     * -Dchannel.ab and -Dchannel.ba (see ChannelModel)
+     */
+    private ChannelModel newChannel(String spec) {
+        int colon = spec.indexOf(':');
+        String kind = colon < 0 ? spec : spec.substring(0, colon);
+        String args = colon < 0 ? null : spec.substring(colon + 1);
+        switch (kind) {
+            case "gilbert":
+                return GilbertElliottChannel.parse(args, lossProb);
+            case "bernoulli":
+                return new BernoulliChannel(lossProb);
+            default:
+                console.println("Unknown channel model \"" + spec +
+                        "\", using bernoulli");
+                return new BernoulliChannel(lossProb);
+        }
+    }
+
+    /*
+     * Delay model of one link, chosen at startup with -Dlink, -Dlink.ab
+     * and -Dlink.ba (see LinkModel)
+     */
+    private LinkModel newLink(String spec) {
+        int colon = spec.indexOf(':');
+        String kind = colon < 0 ? spec : spec.substring(0, colon);
+        String args = colon < 0 ? null : spec.substring(colon + 1);
+        switch (kind) {
+            case "bottleneck":
+                return BottleneckLink.parse(args, false);
+            case "red":
+                return BottleneckLink.parse(args, true);
+            case "trace":
+                return TraceLink.parse(args);
+            case "reorder":
+                return ReorderLink.parse(args);
+            case "uniform":
+                return new UniformLink();
+            default:
+                console.println("Unknown link model \"" + spec +
+                        "\", using uniform");
+                return new UniformLink();
+        }
+    }
+
+    /*
+     * Corruption model of one link, chosen at startup with -Dcorruption,
+     * -Dcorruption.ab and -Dcorruption.ba (see CorruptionModel)
+     */
+    private CorruptionModel newCorruption(String spec) {
+        int colon = spec.indexOf(':');
+        String kind = colon < 0 ? spec : spec.substring(0, colon);
+        String args = colon < 0 ? null : spec.substring(colon + 1);
+        switch (kind) {
+            case "ber":
+                return BitErrorCorruption.parse(args);
+            case "legacy":
+                return new LegacyCorruption(corruptProb);
+            default:
+                console.println("Unknown corruption model \"" + spec +
+                        "\", using legacy");
+                return new LegacyCorruption(corruptProb);
+        }
+    }
+
+    // Corruption model of the link into entity, for engines that roll back
+    CorruptionModel corruption(int entity) {
+        return corruptions[side(entity)];
+    }
+
+    void setCorruption(int entity, CorruptionModel corruption) {
+        corruptions[side(entity)] = corruption;
+    }
+
+    // Smallest delay of any link
+    double minLinkDelay() {
+        double min = Double.POSITIVE_INFINITY;
+        for (LinkModel l : links) {
+            min = Math.min(min, l.minDelay());
+        }
+        return min;
+    }
+
+    // Delay model of the link into entity, for engines that roll back
+    LinkModel link(int entity) {
+        return links[side(entity)];
+    }
+
+    void setLink(int entity, LinkModel link) {
+        links[side(entity)] = link;
+    }
+
+    // Loss model of the link into entity, for engines that roll back
+    ChannelModel channel(int entity) {
+        return channels[side(entity)];
+    }
+
+    void setChannel(int entity, ChannelModel channel) {
+        channels[side(entity)] = channel;
+    }
+
+    /*
+     * -Drandom.block=n draws the random numbers of r n at a time ahead of
+     * use, -Drandom.producer=true on a thread of their own
+     */
+    private RandomStreams precompute(RandomStreams r) {
+        int size = Integer.getInteger("random.block", 0);
+        if (size <= 0) {
+            blocks = null;
+            return r;
+        }
+        blocks = new BlockRandom(r, size, Boolean.getBoolean("random.producer"));
+        return blocks;
+    }
+
+    /*
+     * Pick the event list implementation, chosen at startup with
+     * -Deventlist=heap|calendar|primitive|vector
+     */
+    private EventList newEventList(String kind) {
+        switch (kind) {
+            case "calendar":
+                return new CalendarEventList();
+            case "primitive":
+                return new PrimitiveEventList(pool);
+            case "vector":
+                return new EventListImpl();
+            case "heap":
+                return new HeapEventList();
+            default:
+                console.println("Unknown event list \"" + kind +
+                        "\", using heap");
+                return new HeapEventList();
+        }
+    }
+
     protected void stopTimer(int entity) {
+        if (parallel != null) {
+            parallel.stopTimer(entity);
+            return;
+        }
         if (traceLevel > 2) {
-            System.out.println("stopTimer: stopping timer at " + time);
+            console.println("stopTimer: stopping timer at " + time);
+        }
+
+        if (!isValidEntity(entity)) {
+            console.println("stopTimer: Warning: invalid entity");
+            return;
         }
 
-        Event timer = eventList.removeTimer(entity);
+        stopTimer(timers[entity]);
+    }
 
-        // Let the student know they are attempting to cancel a non-existant 
+    /*
+     * Cancel a timer by the handle startTimer returned for it. In pooled
+     * mode the handle is only good while the timer is running.
+     */
+    protected void stopTimer(Event timer) {
+        if (parallel != null) {
+            parallel.stopTimer(timer);
+            return;
+        }
+        // Let the student know they are attempting to cancel a non-existant
         // timer
-        if (timer == null) {
-            System.out.println("stopTimer: Warning: Unable to cancel your " +
+        if (timer == null || timer.getType() != TIMERINTERRUPT ||
+                !isValidEntity(timer.getEntity()) ||
+                timers[timer.getEntity()] != timer ||
+                !eventList.remove(timer)) {
+            console.println("stopTimer: Warning: Unable to cancel your " +
                     "timer");
+            return;
+        }
+        timers[timer.getEntity()] = null;
+        if (pooled) {
+            pool.release(timer);
         }
     }
 
-    protected void startTimer(int entity, double increment) {
+    /*
+     * Start the timer of an entity and return it as a handle for
+     * stopTimer(Event). If the timer is already running it is left alone
+     * and its handle is returned.
+     */
+    protected Event startTimer(int entity, double increment) {
+        if (parallel != null) {
+            return parallel.startTimer(entity, increment);
+        }
         if (traceLevel > 2) {
-            System.out.println("startTimer: starting timer at " + time);
+            console.println("startTimer: starting timer at " + time);
         }
 
-        Event t = eventList.removeTimer(entity);
+        if (!isValidEntity(entity)) {
+            console.println("startTimer: Warning: invalid entity");
+            return null;
+        }
 
-        if (t != null) {
-            System.out.println("startTimer: Warning: Attempting to start a " +
+        if (timers[entity] != null) {
+            console.println("startTimer: Warning: Attempting to start a " +
                     "timer that is already running");
-            eventList.add(t);
-            return;
-        } else {
-            Event timer = new Event(time + increment, TIMERINTERRUPT, entity);
-            eventList.add(timer);
+            return timers[entity];
         }
+
+        Event timer = newEvent(time + increment, TIMERINTERRUPT, entity, null);
+        eventList.add(timer);
+        timers[entity] = timer;
+        return timer;
     }
 
-    protected void toLayer3(int callingEntity, Packet p) {
-        nToLayer3++;
+    /*
+     * Same as stopTimer followed by startTimer, but moves the running
+     * timer in the event list instead of removing and adding it
+     */
+    protected Event restartTimer(int entity, double increment) {
+        if (parallel != null) {
+            return parallel.restartTimer(entity, increment);
+        }
+        if (traceLevel > 2) {
+            console.println("restartTimer: restarting timer at " + time);
+        }
 
-        int destination;
-        double arrivalTime;
-        Packet packet = new Packet(p);
+        if (!isValidEntity(entity)) {
+            console.println("restartTimer: Warning: invalid entity");
+            return null;
+        }
 
-        if (traceLevel > 2) {
-            System.out.println("toLayer3: " + packet);
+        Event timer = timers[entity];
+        if (timer != null && eventList.reschedule(timer, time + increment)) {
+            return timer;
         }
 
-        // Set our destination
-        if (callingEntity == A) {
-            destination = B;
-        } else if (callingEntity == B) {
-            destination = A;
-        } else {
-            System.out.println("toLayer3: Warning: invalid packet sender");
+        timer = newEvent(time + increment, TIMERINTERRUPT, entity, null);
+        eventList.add(timer);
+        timers[entity] = timer;
+        return timer;
+    }
+
+    boolean isValidEntity(int entity) {
+        return entity >= 0 && entity < 2 * numFlows;
+    }
+
+    /*
+     * In pooled mode the event comes from the pool. Either way it holds
+     * p itself, packets do not change, or in arena mode a handle to it.
+     */
+    private Event newEvent(double t, int type, int entity, Packet p) {
+        if (arena != null && p != null) {
+            Event e = pooled ? pool.event(t, type, entity, null) : new Event(t, type, entity);
+            e.hold(arena, arena.adopt(p));
+            return e;
+        }
+        if (pooled) {
+            return pool.event(t, type, entity, p);
+        }
+        return p == null ? new Event(t, type, entity) : new Event(t, type, entity, p);
+    }
+
+    protected void toLayer3(int callingEntity, Packet p) {
+        if (parallel != null) {
+            parallel.toLayer3(callingEntity, p);
             return;
         }
 
-        // Simulate losses
-        if (rand.nextDouble(1) < lossProb) {
-            nLost++;
+        int destination;
 
-            if (traceLevel > 0) {
-                System.out.println("toLayer3: packet being lost");
-            }
+        if (traceLevel > 2) {
+            console.println("toLayer3: " + p);
+        }
 
+        // Set our destination, the other end of the flow
+        if (!isValidEntity(callingEntity)) {
+            console.println("toLayer3: Warning: invalid packet sender");
             return;
         }
+        destination = isSender(callingEntity) ? callingEntity + 1 : callingEntity - 1;
+
+        // The link is shared by all flows, so its tail is too
+        int side = side(destination);
+        double last = lastArrival[side] >= time ? lastArrival[side] : 0;
+        Event arrival = transmit(destination, p, time, last);
+        if (arrival != null) {
+            lastArrival[side] = Math.max(lastArrival[side], arrival.getTime());
+            eventList.add(arrival);
+        }
+    }
 
-        // Decide when the packet will arrive.  Since the medium cannot
-        // reorder, the packet will arrive 1 to 10 time units after the
-        // last packet sent by this sender
-        arrivalTime = eventList.getLastPacketTime(destination);
+    /*
+     * Put p on the link to destination at time now: decide whether it is
+     * lost, when it arrives and whether it gets corrupted. lastArrival is
+     * the latest arrival still scheduled on the link to destination, 0 if
+     * none. Returns
+     * the arrival event, or null if the packet is lost.
+     */
+    Event transmit(int destination, Packet p, double now, double lastArrival) {
+        return transmit(destination, p, now, lastArrival, rand, true);
+    }
 
-        if (arrivalTime <= 0.0) {
-            arrivalTime = time;
+    /*
+     * Same, drawing from r. Only with count does the packet go into
+     * nToLayer3, nLost and nCorrupt: Time Warp sends from two threads,
+     * and may roll its sends back, so it leaves them alone.
+     */
+    Event transmit(int destination, Packet p, double now, double lastArrival, RandomStreams r,
+                   boolean count) {
+        if (count) {
+            nToLayer3++;
         }
 
-        arrivalTime = arrivalTime + 1 + (rand.nextDouble(2) * 9);
+        double arrivalTime;
 
-        // Simulate corruption
-        if (rand.nextDouble(3) < corruptProb) {
-            nCorrupt++;
+        // Simulate losses
+        if (channels[side(destination)].lost(r)) {
+            if (count) {
+                nLost++;
+            }
 
             if (traceLevel > 0) {
-                System.out.println("toLayer3: packet being corrupted");
+                console.println("toLayer3: packet being lost");
             }
 
-            double x = rand.nextDouble(4);
-            if (x < 0.75) {
-                String payload = packet.getPayload();
+            return null;
+        }
 
-                if (payload.length() > 0)
+        // Decide when the packet will arrive.  Only a reordering link
+        // lets it overtake packets sent before, and a queue may have no
+        // room for it
+        arrivalTime = links[side(destination)].arrival(p, now, lastArrival, r);
 
-                    payload = "?" + payload.substring(1);
+        if (arrivalTime < 0) {
+            if (traceLevel > 0) {
+                console.println("toLayer3: packet dropped by the link queue");
+            }
 
-                else payload = "?";
+            return null;
+        }
+
+        // Simulate corruption, on a copy of p if any
+        Packet packet = corruptions[side(destination)].corrupt(p, r);
+        if (packet != p) {
+            if (count) {
+                nCorrupt++;
+            }
 
-                packet.setPayload(payload);
-            } else if (x < 0.875) {
-                packet.setSeqnum(999999);
-            } else {
-                packet.setAcknum(999999);
+            if (traceLevel > 0) {
+                console.println("toLayer3: packet being corrupted");
             }
         }
 
 
         // Finally, create and schedule this event
         if (traceLevel > 2) {
-            System.out.println("toLayer3: scheduling arrival on other side");
+            console.println("toLayer3: scheduling arrival on other side");
+        }
+        return newEvent(arrivalTime, FROMLAYER3, destination, packet);
+    }
+
+    protected void toLayer5(byte[] dataSent) {
+        if (parallel != null) {
+            parallel.toLayer5(dataSent);
+            return;
         }
-        Event arrival = new Event(arrivalTime, FROMLAYER3, destination, packet);
-        eventList.add(arrival);
+        write(dataSent);
     }
 
-    protected void toLayer5(String dataSent) {
+    // Append one delivered message to the output
+    void write(byte[] dataSent) {
         try {
             outFile.write(dataSent, 0, MAXDATASIZE);
             outFile.write('\n');
+            outputBytes += MAXDATASIZE + 1;
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    protected int getNumFlows() {
+        return numFlows;
+    }
+
+    /**
+     * The arena of arena mode, null in any other mode. Packets the student
+     * buffers can be kept in it as well, see PacketArena.
+     */
+    protected PacketArena getArena() {
+        return arena;
+    }
+
     protected double getTime() {
+        if (parallel != null) {
+            return parallel.getTime();
+        }
         return time;
     }
 
     protected void printEventList() {
-        System.out.println(eventList.toString());
+        if (parallel != null) {
+            parallel.printEventList();
+            return;
+        }
+        console.println(eventList.toString());
     }
 
 }
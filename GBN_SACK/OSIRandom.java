@@ -1,9 +1,44 @@
-public class OSIRandom {
+import java.nio.ByteBuffer;
+
+public class OSIRandom implements RandomStreams {
     private long seed[] = new long[5];
+    private int base;       // the seed it started from
 
     public OSIRandom(int s) {
         for (int i = 0; i < 5; i++)
             seed[i] = (s + i) & 0xFFFFFFFFL;
+        base = s;
+    }
+
+    // A generator that continues every stream exactly where r is
+    public OSIRandom(OSIRandom r) {
+        seed = r.seed.clone();
+        base = r.base;
+    }
+
+    public RandomStreams copy() {
+        return new OSIRandom(this);
+    }
+
+    // Seeded with the next five seeds, as the simulator always did for B
+    public RandomStreams split() {
+        return new OSIRandom(base + 5);
+    }
+
+    // Checkpointed state of the streams
+    public void writeTo(ByteBuffer out) {
+        out.put(LEGACY);
+        for (long s : seed) {
+            out.putLong(s);
+        }
+        out.putInt(base);
+    }
+
+    OSIRandom(ByteBuffer in) {
+        for (int i = 0; i < seed.length; i++) {
+            seed[i] = in.getLong();
+        }
+        base = in.getInt();
     }
 
     public int nextInt(int i) {
@@ -1,19 +1,23 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
+/*
+ * A packet never changes once built, so it is passed around by reference:
+ * the sender's buffer, the events in flight and the receiver's buffer may
+ * all hold the same one. The payload and sack arrays are taken over, not
+ * copied, and must not be changed after. A packet that gets corrupted on
+ * the way is replaced by a corrupted copy, see the with methods. In arena
+ * mode those three hold handles into a PacketArena instead.
+ */
 public class Packet {
-    private int seqnum;
-    private int acknum;
-    private int checksum;
-    private String payload;
-    private int sack[];     // ack latest 5 data packets received successfully
+    private static final byte[] EMPTY = new byte[0];
 
-    public Packet(Packet p) {
-        seqnum = p.getSeqnum();
-        acknum = p.getAcknum();
-        checksum = p.getChecksum();
-        payload = new String(p.getPayload());
-        sack = p.getSack();
-    }
+    private final int seqnum;
+    private final int acknum;
+    private final int checksum;
+    private final byte[] payload;
+    private final int sack[];     // ack latest 5 data packets received successfully
 
 //    public Packet(int seq, int ack, int check, String newPayload) {
 //        seqnum = seq;
@@ -29,16 +33,16 @@ public class Packet {
 //        this.sack = new int[5];
 //    }
 
-    public Packet(int seq, int ack, int check, String newPayload, int[] sack) {
+    public Packet(int seq, int ack, int check, byte[] newPayload, int[] sack) {
         seqnum = seq;
         acknum = ack;
         checksum = check;
         if (newPayload == null) {
-            payload = "";
-        } else if (newPayload.length() > NetworkSimulator.MAXDATASIZE) {
+            payload = EMPTY;
+        } else if (newPayload.length > NetworkSimulator.MAXDATASIZE) {
             payload = null;
         } else {
-            payload = new String(newPayload);
+            payload = newPayload;
         }
         this.sack = sack;
     }
@@ -47,51 +51,122 @@ public class Packet {
         seqnum = seq;
         acknum = ack;
         checksum = check;
-        payload = "";
+        payload = EMPTY;
         this.sack = new int[5];
     }
 
-
-    public boolean setSeqnum(int n) {
-        seqnum = n;
-        return true;
-    }
-
-    public boolean setAcknum(int n) {
-        acknum = n;
-        return true;
+    // The fields as given, a null payload included, for the with methods
+    private Packet(int seq, int ack, int check, int[] sack, byte[] payload) {
+        seqnum = seq;
+        acknum = ack;
+        checksum = check;
+        this.payload = payload;
+        this.sack = sack;
     }
 
-    public boolean setChecksum(int n) {
-        checksum = n;
-        return true;
+    /**
+     * @return a copy of this packet with sequence number n
+     */
+    public Packet withSeqnum(int n) {
+        return new Packet(n, acknum, checksum, sack, payload);
+    }
+
+    /**
+     * @return a copy of this packet with ack number n
+     */
+    public Packet withAcknum(int n) {
+        return new Packet(seqnum, n, checksum, sack, payload);
+    }
+
+    /**
+     * @return a copy of this packet with newPayload, which is empty if
+     * null or too long
+     */
+    public Packet withPayload(byte[] newPayload) {
+        return new Packet(seqnum, acknum, checksum, sack, newPayload == null ||
+                newPayload.length > NetworkSimulator.MAXDATASIZE ? EMPTY : newPayload);
+    }
+
+    /*
+     * Wire format, in network byte order:
+     *
+     *      0  int   seqnum
+     *      4  int   acknum
+     *      8  int   checksum
+     *     12  short payload length, 0xFFFF for a null payload
+     *     14  byte  sack length, 0xFF for a null sack
+     *     15  byte  0
+     *     16  payload
+     *         sack, an int per entry
+     *
+     * Checksums, corruption, checkpoints and the event log all use it.
+     */
+    static final int HEADER = 16;
+    static final int CHECKSUM = 8;      // offset of the checksum
+    static final int LENGTHS = 12;      // offset of the payload and sack lengths
+    private static final int NONE = 0xFFFF;
+
+    /**
+     * Write the packet at the position of out, which must be big-endian
+     * and have size() bytes remaining, and move the position past it
+     */
+    public void encode(ByteBuffer out) {
+        encode(out, seqnum, acknum, checksum, payload, sack);
+    }
+
+    static void encode(ByteBuffer out, int seq, int ack, int check, byte[] payload, int[] sack) {
+        out.putInt(seq).putInt(ack).putInt(check);
+        out.putShort((short) (payload == null ? NONE : payload.length));
+        out.put((byte) (sack == null ? 0xFF : sack.length)).put((byte) 0);
+        if (payload != null) {
+            out.put(payload);
+        }
+        if (sack != null) {
+            for (int a : sack) {
+                out.putInt(a);
+            }
+        }
     }
 
-    public boolean setPayload(String newPayload) {
-        if (newPayload == null) {
-            payload = "";
-            return false;
-        } else if (newPayload.length() > NetworkSimulator.MAXDATASIZE) {
-            payload = "";
-            return false;
+    /**
+     * Read a packet written by encode at the position of in, and move the
+     * position past it
+     */
+    public static Packet decode(ByteBuffer in) {
+        return new Packet(in);
+    }
+
+    // Same, for decode and PacketArena
+    Packet(ByteBuffer in) {
+        seqnum = in.getInt();
+        acknum = in.getInt();
+        checksum = in.getInt();
+        int length = in.getShort() & 0xFFFF;
+        int sackLength = in.get() & 0xFF;
+        in.get();
+        if (length != NONE) {
+            payload = new byte[length];
+            in.get(payload);
         } else {
-            payload = new String(newPayload);
-            return true;
+            payload = null;
         }
-    }
-
-    public boolean setSack(int index, int ack) {
-        if (index < 0 || index >= sack.length) {
-            return false;
+        if (sackLength != 0xFF) {
+            sack = new int[sackLength];
+            for (int i = 0; i < sackLength; i++) {
+                sack[i] = in.getInt();
+            }
+        } else {
+            sack = null;
         }
-        this.sack[index] = ack;
-        return true;
     }
 
-    public boolean setSack(int[] newSack) {
-        if (newSack.length != sack.length) return false;
-        this.sack = newSack;
-        return true;
+    /**
+     * Bytes of the packet on the wire, encoded at position in wire
+     */
+    static int size(ByteBuffer wire, int position) {
+        int length = wire.getShort(position + LENGTHS) & 0xFFFF;
+        int sackLength = wire.get(position + LENGTHS + 2) & 0xFF;
+        return HEADER + (length == NONE ? 0 : length) + (sackLength == 0xFF ? 0 : 4 * sackLength);
     }
 
     public int getSeqnum() {
@@ -106,7 +181,7 @@ public class Packet {
         return checksum;
     }
 
-    public String getPayload() {
+    public byte[] getPayload() {
         return payload;
     }
 
@@ -121,9 +196,17 @@ public class Packet {
         return this.sack[index];
     }
 
+    /*
+     * Bytes the packet takes on the wire
+     */
+    public int size() {
+        return HEADER + (payload == null ? 0 : payload.length) + (sack == null ? 0 : 4 * sack.length);
+    }
+
     public String toString() {
         return ("seqnum: " + seqnum + "  acknum: " + acknum + "  checksum: " +
-                checksum + "  payload: " + payload + "sack: " + Arrays.toString(this.sack));
+                checksum + "  payload: " + (payload == null ? null :
+                new String(payload, StandardCharsets.ISO_8859_1)) + "sack: " + Arrays.toString(this.sack));
     }
 
 }
@@ -0,0 +1,210 @@
+/***************************************************************************
+ * ClassName: PacketArena
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Off-heap packet store of the arena mode of NetworkSimulator
+ * (-Darena=true). Packets are kept in their wire format, see Packet.encode,
+ * in fixed-size slots of 1 MB direct ByteBuffer slabs, and are addressed by
+ * int handles. The send buffer, the receiver buffer and the events in
+ * flight hold handles instead of Packet objects, so the heap does not grow
+ * with the number of packets buffered, whatever the window size. Slabs are
+ * added as they are needed and kept until the arena goes away.
+ *
+ * Slots count their references. allocate and adopt return a handle that
+ * holds one, retain adds one and release drops one. A slot is freed when
+ * its count drops to 0 and goes on a free list threaded through the free
+ * slots themselves. get decodes a slot into a new Packet, which stays valid
+ * after the slot is freed. adopt recognizes the Packets get returns and
+ * shares their slot, so a packet passed on unchanged is never copied.
+ *
+ * A slot is an int reference count, an int generation and the packet. The
+ * generation goes up every time the slot is allocated, which tells the
+ * Packets of earlier occupants apart. The arena is not thread safe.
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class PacketArena {
+    public static final int NIL = -1;       // the handle of no packet
+
+    private static final int SLAB = 1 << 20;
+    private static final int REFS = 0;      // slot offsets
+    private static final int GENERATION = 4;
+    private static final int PACKET = 8;
+    private static final int NEXT = PACKET; // next free slot, while free
+
+    private final int slotSize;
+    private final int perSlab;      // slots in a slab
+    private ByteBuffer[] slabs;
+    private int nSlabs;
+    private int free;               // first free slot, NIL if none
+
+    // statistics
+    private int live;
+    private int peak;
+
+    /**
+     * @param maxPacket bytes of the largest packet on the wire
+     */
+    public PacketArena(int maxPacket) {
+        if (maxPacket < Packet.HEADER) {
+            throw new IllegalArgumentException("Packets take at least " + Packet.HEADER +
+                    " bytes: " + maxPacket);
+        }
+        this.slotSize = (PACKET + maxPacket + 7) & ~7;
+        this.perSlab = Math.max(1, SLAB / slotSize);
+        this.slabs = new ByteBuffer[4];
+        this.free = NIL;
+    }
+
+    /**
+     * Store a copy of p in a new slot
+     *
+     * @return its handle, holding one reference
+     */
+    public int allocate(Packet p) {
+        int size = p.size();
+        if (PACKET + size > slotSize) {
+            throw new IllegalArgumentException("Packet of " + size + " bytes does not fit a slot of " +
+                    (slotSize - PACKET));
+        }
+        if (free == NIL) {
+            grow();
+        }
+        int handle = free;
+        ByteBuffer slab = slabs[handle / perSlab];
+        int at = offset(handle);
+        free = slab.getInt(at + NEXT);
+        slab.putInt(at + REFS, 1);
+        slab.putInt(at + GENERATION, slab.getInt(at + GENERATION) + 1);
+        slab.position(at + PACKET);
+        p.encode(slab);
+        if (++live > peak) {
+            peak = live;
+        }
+        return handle;
+    }
+
+    /**
+     * Hold on to p: the slot it was read from if it came from get and the
+     * slot still holds it, else a new one
+     *
+     * @return its handle, holding one reference
+     */
+    public int adopt(Packet p) {
+        if (p instanceof View) {
+            View v = (View) p;
+            if (v.arena == this && refs(v.handle) > 0 &&
+                    slabs[v.handle / perSlab].getInt(offset(v.handle) + GENERATION) == v.generation) {
+                retain(v.handle);
+                return v.handle;
+            }
+        }
+        return allocate(p);
+    }
+
+    public void retain(int handle) {
+        int refs = refs(handle);
+        if (refs <= 0) {
+            throw new IllegalStateException("Packet handle " + handle + " is not live");
+        }
+        slabs[handle / perSlab].putInt(offset(handle) + REFS, refs + 1);
+    }
+
+    /**
+     * Drop a reference to handle, freeing the slot with the last one
+     */
+    public void release(int handle) {
+        int refs = refs(handle);
+        if (refs <= 0) {
+            throw new IllegalStateException("Packet handle " + handle + " is not live");
+        }
+        ByteBuffer slab = slabs[handle / perSlab];
+        int at = offset(handle);
+        slab.putInt(at + REFS, refs - 1);
+        if (refs == 1) {
+            slab.putInt(at + NEXT, free);
+            free = handle;
+            --live;
+        }
+    }
+
+    /**
+     * The packet in the slot of handle, decoded into a new Packet
+     */
+    public Packet get(int handle) {
+        if (refs(handle) <= 0) {
+            throw new IllegalStateException("Packet handle " + handle + " is not live");
+        }
+        ByteBuffer slab = slabs[handle / perSlab];
+        int at = offset(handle);
+        slab.position(at + PACKET);
+        return new View(slab, this, handle, slab.getInt(at + GENERATION));
+    }
+
+    /**
+     * Sequence number of the packet in the slot of handle, without
+     * decoding it
+     */
+    public int seqnum(int handle) {
+        return slabs[handle / perSlab].getInt(offset(handle) + PACKET);
+    }
+
+    /**
+     * Slots in use
+     */
+    public int live() {
+        return live;
+    }
+
+    public String report() {
+        return String.format("%d slabs of %d slots of %d bytes, %d slots in use at most, %d at the end",
+                nSlabs, perSlab, slotSize, peak, live);
+    }
+
+    private int refs(int handle) {
+        if (handle < 0 || handle >= nSlabs * perSlab) {
+            throw new IllegalArgumentException("Invalid packet handle " + handle);
+        }
+        return slabs[handle / perSlab].getInt(offset(handle) + REFS);
+    }
+
+    private int offset(int handle) {
+        return (handle % perSlab) * slotSize;
+    }
+
+    // Add a slab and put all of its slots on the free list, in order
+    private void grow() {
+        if ((long) (nSlabs + 1) * perSlab > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Packet arena is out of handles");
+        }
+        if (nSlabs == slabs.length) {
+            slabs = Arrays.copyOf(slabs, 2 * nSlabs);
+        }
+        ByteBuffer slab = ByteBuffer.allocateDirect(perSlab * slotSize);
+        int first = nSlabs * perSlab;
+        for (int i = 0; i < perSlab; i++) {
+            slab.putInt(i * slotSize + NEXT, i + 1 < perSlab ? first + i + 1 : free);
+        }
+        slabs[nSlabs++] = slab;
+        free = first;
+    }
+
+    /*
+     * A packet decoded from a slot, with what adopt needs to find the slot
+     * again
+     */
+    private static final class View extends Packet {
+        private final PacketArena arena;
+        private final int handle;
+        private final int generation;
+
+        View(ByteBuffer in, PacketArena arena, int handle, int generation) {
+            super(in);
+            this.arena = arena;
+            this.handle = handle;
+            this.generation = generation;
+        }
+    }
+}
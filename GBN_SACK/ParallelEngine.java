@@ -0,0 +1,35 @@
+/***************************************************************************
+ * ClassName: ParallelEngine
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: An engine that runs the simulation in place of the
+ * sequential loop of NetworkSimulator.runSimulator, on several threads
+ * (chosen with -Dengine) or from a log (-Dreplay). While it runs, the
+ * routines the student calls on NetworkSimulator are handed to it, and it
+ * answers them for the entity whose event the calling thread is running.
+ ****************************************************************************/
+
+public interface ParallelEngine {
+    /**
+     * Run the simulation to its end
+     *
+     * @return time of the last event
+     */
+    double run();
+
+    Event startTimer(int entity, double increment);
+
+    void stopTimer(int entity);
+
+    void stopTimer(Event timer);
+
+    Event restartTimer(int entity, double increment);
+
+    void toLayer3(int callingEntity, Packet p);
+
+    void toLayer5(byte[] dataSent);
+
+    double getTime();
+
+    void printEventList();
+}
@@ -0,0 +1,293 @@
+/***************************************************************************
+ * ClassName: ParameterSweep
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Sweeps window size, retransmission timeout, loss and
+ * corruption probability of StudentNetworkSimulator. The points are either
+ * the full grid of the given ranges or a Latin hypercube sample of them.
+ * Every point is run with several consecutive seeds, all runs are spread
+ * over a ForkJoinPool, and each finished run is written to the CSV file
+ * right away, so a partial sweep is usable too.
+ *
+ * A range is min:max:steps, or a single value to keep that parameter
+ * fixed. With -lhs N the steps are ignored and N points are drawn.
+ *
+ *     java ParameterSweep -window 4:32:8 -timeout 10:50:5 -loss 0:0.3:4
+ *                         -corrupt 0:0.3:4 [-lhs points] [-lhsseed n]
+ *                         [-messages n] [-delay d] [-seeds n]
+ *                         [-firstseed n] [-threads n] [-out sweep.csv]
+ ****************************************************************************/
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParameterSweep {
+    public static final String HEADER = "point,seed,windowsize,timeout,loss,corrupt," +
+            "throughput,goodput,avg_rtt,avg_comm,retransmissions";
+
+    private final int nsim;
+    private final double delay;
+    private final Range window;
+    private final Range timeout;
+    private final Range loss;
+    private final Range corrupt;
+
+    public ParameterSweep(int nsim, double delay, Range window, Range timeout, Range loss, Range corrupt) {
+        this.nsim = nsim;
+        this.delay = delay;
+        this.window = window;
+        this.timeout = timeout;
+        this.loss = loss;
+        this.corrupt = corrupt;
+    }
+
+    /**
+     * @return every combination of the grid values, each point is
+     * {windowsize, timeout, loss, corrupt}
+     */
+    public List<double[]> grid() {
+        List<double[]> points = new ArrayList<>();
+        for (int w = 0; w < window.steps; w++) {
+            for (int t = 0; t < timeout.steps; t++) {
+                for (int l = 0; l < loss.steps; l++) {
+                    for (int c = 0; c < corrupt.steps; c++) {
+                        points.add(new double[]{window.gridValue(w), timeout.gridValue(t),
+                                loss.gridValue(l), corrupt.gridValue(c)});
+                    }
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Latin hypercube sample: every range is cut into n equal strata and
+     * each stratum of each parameter is used by exactly one point
+     */
+    public List<double[]> latinHypercube(int n, long seed) {
+        Random random = new Random(seed);
+        Range[] ranges = {window, timeout, loss, corrupt};
+        double[][] columns = new double[ranges.length][];
+        for (int d = 0; d < ranges.length; d++) {
+            int[] strata = permutation(n, random);
+            columns[d] = new double[n];
+            for (int i = 0; i < n; i++) {
+                columns[d][i] = ranges[d].at((strata[i] + random.nextDouble()) / n);
+            }
+        }
+        List<double[]> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            points.add(new double[]{columns[0][i], columns[1][i], columns[2][i], columns[3][i]});
+        }
+        return points;
+    }
+
+    private static int[] permutation(int n, Random random) {
+        int[] p = new int[n];
+        for (int i = 0; i < n; i++) {
+            p[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = p[i];
+            p[i] = p[j];
+            p[j] = t;
+        }
+        return p;
+    }
+
+    /**
+     * Run every point with seeds firstSeed..firstSeed+seeds-1 and write one
+     * CSV row per run, in the order the runs finish
+     *
+     * @return number of runs that failed
+     */
+    public int run(List<double[]> points, int firstSeed, int seeds, ForkJoinPool pool,
+                   Writer csv) throws IOException {
+        ExecutorCompletionService<String> done = new ExecutorCompletionService<>(pool);
+        for (int p = 0; p < points.size(); p++) {
+            for (int s = 0; s < seeds; s++) {
+                final int point = p;
+                final int seed = firstSeed + s;
+                done.submit(() -> runOne(point, points.get(point), seed));
+            }
+        }
+
+        csv.write(HEADER);
+        csv.write('\n');
+        int failed = 0;
+        int total = points.size() * seeds;
+        for (int i = 0; i < total; i++) {
+            String row;
+            try {
+                row = done.take().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Sweep interrupted after " + i + " runs");
+            } catch (ExecutionException e) {
+                ++failed;
+                System.err.println("Run failed: " + e.getCause().getMessage());
+                continue;
+            }
+            csv.write(row);
+            csv.write('\n');
+            csv.flush();
+        }
+        return failed;
+    }
+
+    private String runOne(int point, double[] values, int seed) throws IOException {
+        int windowsize = (int) values[0];
+        ReplicationRunner runner = new ReplicationRunner(nsim, values[2], values[3], delay,
+                windowsize, values[1], false);
+        double[] stats;
+        try {
+            stats = runner.replicate(seed);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("point " + point + " seed " + seed + ": " + e, e);
+        }
+        StringBuilder row = new StringBuilder();
+        row.append(point).append(',').append(seed).append(',').append(windowsize)
+                .append(',').append(values[1]).append(',').append(values[2])
+                .append(',').append(values[3]);
+        for (int i = 0; i < stats.length - 1; i++) {
+            row.append(',').append(stats[i]);
+        }
+        row.append(',').append((int) stats[stats.length - 1]);
+        return row.toString();
+    }
+
+    /**
+     * A closed range of one parameter. Integer ranges round their values.
+     */
+    public static class Range {
+        private final double min;
+        private final double max;
+        private final int steps;
+        private final boolean integer;
+
+        public Range(double min, double max, int steps, boolean integer) {
+            if (steps < 1 || max < min) {
+                throw new IllegalArgumentException("Bad range " + min + ":" + max + ":" + steps);
+            }
+            this.min = min;
+            this.max = max;
+            this.steps = min == max ? 1 : steps;
+            this.integer = integer;
+        }
+
+        /**
+         * @param spec min:max:steps, min:max (two steps) or a single value
+         */
+        public static Range parse(String spec, boolean integer) {
+            String[] parts = spec.split(":");
+            try {
+                double min = Double.parseDouble(parts[0]);
+                double max = parts.length > 1 ? Double.parseDouble(parts[1]) : min;
+                int steps = parts.length > 2 ? Integer.parseInt(parts[2]) : (parts.length > 1 ? 2 : 1);
+                if (parts.length > 3) {
+                    throw new IllegalArgumentException("Bad range " + spec);
+                }
+                return new Range(min, max, steps, integer);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad range " + spec, e);
+            }
+        }
+
+        /**
+         * Whether every value of the range lies in [low, high]
+         */
+        boolean within(double low, double high) {
+            return at(0) >= low && at(1) <= high;
+        }
+
+        double gridValue(int i) {
+            return steps == 1 ? at(0) : at((double) i / (steps - 1));
+        }
+
+        /**
+         * @param u position in the range, 0 is min and 1 is max
+         */
+        double at(double u) {
+            double value = min + u * (max - min);
+            return integer ? Math.round(value) : value;
+        }
+    }
+
+    public static void main(String[] argv) throws IOException {
+        int nsim = 1000;
+        double delay = 50;
+        Range window = new Range(8, 8, 1, true);
+        Range timeout = new Range(30, 30, 1, false);
+        Range loss = new Range(0.1, 0.1, 1, false);
+        Range corrupt = new Range(0.1, 0.1, 1, false);
+        int lhs = 0;
+        long lhsSeed = 1;
+        int seeds = 1;
+        int firstSeed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String out = "sweep.csv";
+
+        try {
+            for (int i = 0; i < argv.length; i++) {
+                String option = argv[i];
+                if (i + 1 == argv.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                }
+                String value = argv[++i];
+                switch (option) {
+                    case "-window": window = Range.parse(value, true); break;
+                    case "-timeout": timeout = Range.parse(value, false); break;
+                    case "-loss": loss = Range.parse(value, false); break;
+                    case "-corrupt": corrupt = Range.parse(value, false); break;
+                    case "-lhs": lhs = Integer.parseInt(value); break;
+                    case "-lhsseed": lhsSeed = Long.parseLong(value); break;
+                    case "-messages": nsim = Integer.parseInt(value); break;
+                    case "-delay": delay = Double.parseDouble(value); break;
+                    case "-seeds": seeds = Integer.parseInt(value); break;
+                    case "-firstseed": firstSeed = Integer.parseInt(value); break;
+                    case "-threads": threads = Integer.parseInt(value); break;
+                    case "-out": out = value; break;
+                    default: throw new IllegalArgumentException("Unknown option " + option);
+                }
+            }
+            if (nsim < 1 || seeds < 1 || threads < 1 || lhs < 0 || !(delay > 0)) {
+                throw new IllegalArgumentException("messages, seeds, threads and delay must be > 0");
+            }
+            // the bounds Project enforces on what it reads
+            if (!window.within(1, Integer.MAX_VALUE) || !timeout.within(Double.MIN_VALUE, Double.MAX_VALUE)) {
+                throw new IllegalArgumentException("window must be >= 1 and timeout > 0");
+            }
+            if (!loss.within(0, 1) || !corrupt.within(0, 1)) {
+                throw new IllegalArgumentException("loss and corrupt must be in [0, 1]");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println("usage: java ParameterSweep [-window min:max:steps] [-timeout min:max:steps] " +
+                    "[-loss min:max:steps] [-corrupt min:max:steps] [-lhs points] [-lhsseed n] " +
+                    "[-messages n] [-delay d] [-seeds n] [-firstseed n] [-threads n] [-out file]");
+            System.exit(1);
+            return;
+        }
+
+        ParameterSweep sweep = new ParameterSweep(nsim, delay, window, timeout, loss, corrupt);
+        List<double[]> points = lhs > 0 ? sweep.latinHypercube(lhs, lhsSeed) : sweep.grid();
+        System.out.printf("%d points x %d seeds on %d threads -> %s%n", points.size(), seeds, threads, out);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        int failed;
+        try (Writer csv = new BufferedWriter(new FileWriter(out))) {
+            failed = sweep.run(points, firstSeed, seeds, pool, csv);
+        } finally {
+            pool.shutdown();
+        }
+        System.out.printf("%d runs in %.2f s, %d failed%n", points.size() * seeds,
+                (System.nanoTime() - start) / 1e9, failed);
+    }
+}
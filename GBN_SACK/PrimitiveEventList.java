@@ -0,0 +1,331 @@
+/***************************************************************************
+ * ClassName: PrimitiveEventList
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: EventList that keeps no Event objects. Every queued event
+ * lives in a slot of parallel arrays (type, entity, packet, handle) and a
+ * binary heap orders the slots. All columns are primitive but packet, which
+ * holds a Packet reference unless the simulator runs in arena mode; then
+ * packet is null and handle holds the PacketArena handle instead. The heap
+ * keeps the time and insertion stamp of each entry next to the slot
+ * number, so comparisons in removeNext read contiguous arrays instead of
+ * chasing pointers. A queued event takes about 37 bytes.
+ *
+ * add copies the event into a slot and records the slot and stamp in the
+ * Event, which is enough for remove and reschedule to find it again.
+ * removeNext builds a new Event for the caller. Equal-time events come out
+ * in the order they were added, same as EventListImpl.
+ *
+ * In pooled mode the list is given the simulator's EventPool. removeNext
+ * then takes the Event it returns from the pool, and add hands every event
+ * but a timer back to the pool once it is copied. Timers stay with the
+ * simulator, which uses them as handles.
+ ****************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PrimitiveEventList implements EventList {
+    // i-th heap entry: key and the slot holding the rest of the event
+    private double[] heapTime;
+    private long[] heapOrder;   // insertion stamp, breaks time ties FIFO
+    private int[] heapSlot;
+    private int size;
+    private long nextOrder;
+
+    // slot columns
+    private byte[] type;
+    private int[] entity;
+    private Packet[] packet;
+    private int[] handle;       // PacketArena.NIL unless the packet is in arena
+    private PacketArena arena;
+    private int[] pos;          // heap index of each slot, -1 when the slot is free
+    private int[] freeSlots;
+    private int nFree;
+    private int nSlots;         // slots handed out so far
+
+    private int[] lastSlot;     // slot and stamp of the latest arrival per entity
+    private long[] lastOrder;
+
+    private final EventPool pool;   // null unless pooled
+
+    public PrimitiveEventList() {
+        this(64, null);
+    }
+
+    public PrimitiveEventList(EventPool pool) {
+        this(64, pool);
+    }
+
+    public PrimitiveEventList(int capacity, EventPool pool) {
+        this.pool = pool;
+        if (capacity < 1) capacity = 1;
+        this.heapTime = new double[capacity];
+        this.heapOrder = new long[capacity];
+        this.heapSlot = new int[capacity];
+        this.type = new byte[capacity];
+        this.entity = new int[capacity];
+        this.packet = new Packet[capacity];
+        this.handle = new int[capacity];
+        this.pos = new int[capacity];
+        this.freeSlots = new int[capacity];
+        this.lastSlot = new int[2];
+        this.lastOrder = new long[2];
+        Arrays.fill(this.lastSlot, -1);
+    }
+
+    public boolean add(Event e) {
+        if (size == heapSlot.length) grow();
+        int slot = nFree > 0 ? freeSlots[--nFree] : nSlots++;
+        type[slot] = (byte) e.getType();
+        entity[slot] = e.getEntity();
+        handle[slot] = e.handle();
+        if (handle[slot] == PacketArena.NIL) {
+            packet[slot] = e.getPacket();
+        } else {
+            arena = e.arena();
+        }
+
+        long stamp = nextOrder++;
+        heapTime[size] = e.getTime();
+        heapOrder[size] = stamp;
+        heapSlot[size] = slot;
+        pos[slot] = size;
+        e.slot = slot;
+        e.stamp = stamp;
+        siftUp(size);
+        ++size;
+
+        if (e.getType() == NetworkSimulator.FROMLAYER3) arrivalAdded(slot);
+        if (pool != null && e.getType() != NetworkSimulator.TIMERINTERRUPT) {
+            pool.release(e);
+        }
+        return true;
+    }
+
+    public Event removeNext() {
+        if (size == 0) {
+            return null;
+        }
+        Event next = toEvent(0, pool);
+        removeAt(0);
+        return next;
+    }
+
+    public String toString() {
+        Integer[] index = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            index[i] = i;
+        }
+        Arrays.sort(index, (i, j) -> less(i, j) ? -1 : (less(j, i) ? 1 : 0));
+        List<Event> sorted = new ArrayList<>(size);
+        for (int i : index) {
+            sorted.add(toEvent(i, null));
+        }
+        return sorted.toString();
+    }
+
+    public Event removeTimer(int entity) {
+        int timerIndex = -1;
+        for (int i = 0; i < size; i++) {
+            int slot = heapSlot[i];
+            if (type[slot] == NetworkSimulator.TIMERINTERRUPT &&
+                    this.entity[slot] == entity &&
+                    (timerIndex == -1 || heapOrder[i] < heapOrder[timerIndex])) {
+                timerIndex = i;
+            }
+        }
+        if (timerIndex == -1) {
+            return null;
+        }
+        Event timer = toEvent(timerIndex, pool);
+        removeAt(timerIndex);
+        return timer;
+    }
+
+    public double getLastPacketTime(int entityTo) {
+        if (entityTo < 0 || entityTo >= lastSlot.length) {
+            return 0;
+        }
+        int index = queuedIndex(lastSlot[entityTo], lastOrder[entityTo]);
+        return index >= 0 ? heapTime[index] : 0;
+    }
+
+    public boolean remove(Event e) {
+        int index = queuedIndex(e.slot, e.stamp);
+        if (index < 0) {
+            return false;
+        }
+        int slot = e.slot;
+        boolean arrival = type[slot] == NetworkSimulator.FROMLAYER3;
+        int to = entity[slot];
+        removeAt(index);
+        e.slot = -1;
+        if (arrival) arrivalMoved(to);
+        return true;
+    }
+
+    /**
+     * Moves the key of e in place. The event gets a new insertion stamp,
+     * exactly like removing it and adding it again would.
+     */
+    public boolean reschedule(Event e, double time) {
+        int index = queuedIndex(e.slot, e.stamp);
+        if (index < 0) {
+            return false;
+        }
+        long stamp = nextOrder++;
+        e.setTime(time);
+        e.stamp = stamp;
+        heapTime[index] = time;
+        heapOrder[index] = stamp;
+        if (index > 0 && less(index, (index - 1) / 2)) {
+            siftUp(index);
+        } else {
+            siftDown(index);
+        }
+        if (type[e.slot] == NetworkSimulator.FROMLAYER3) arrivalMoved(entity[e.slot]);
+        return true;
+    }
+
+    /*
+     * Heap index of the event in slot with the given stamp, -1 if that
+     * event is not queued any more (the slot may hold a newer one)
+     */
+    private int queuedIndex(int slot, long stamp) {
+        if (slot < 0 || slot >= nSlots) {
+            return -1;
+        }
+        int index = pos[slot];
+        return index >= 0 && heapOrder[index] == stamp ? index : -1;
+    }
+
+    // The event queued at index, taken from pool if not null
+    private Event toEvent(int index, EventPool pool) {
+        int slot = heapSlot[index];
+        Event e = pool != null ? pool.event(heapTime[index], type[slot], entity[slot], packet[slot]) :
+                new Event(heapTime[index], type[slot], entity[slot], packet[slot]);
+        e.slot = -1;
+        if (handle[slot] != PacketArena.NIL) {
+            e.hold(arena, handle[slot]);
+        }
+        e.stamp = heapOrder[index];
+        return e;
+    }
+
+    private void arrivalAdded(int slot) {
+        int to = entity[slot];
+        if (to < 0) return;
+        if (to >= lastSlot.length) {
+            int n = Math.max(to + 1, lastSlot.length * 2);
+            int old = lastSlot.length;
+            lastSlot = Arrays.copyOf(lastSlot, n);
+            lastOrder = Arrays.copyOf(lastOrder, n);
+            Arrays.fill(lastSlot, old, n, -1);
+        }
+        int last = queuedIndex(lastSlot[to], lastOrder[to]);
+        int index = pos[slot];
+        if (last < 0 || heapTime[index] >= heapTime[last]) {
+            lastSlot[to] = slot;
+            lastOrder[to] = heapOrder[index];
+        }
+    }
+
+    /*
+     * An arrival was taken out or moved without being dispatched. That
+     * never happens in the simulator, so finding the new latest one with
+     * a scan is fine.
+     */
+    private void arrivalMoved(int to) {
+        if (to < 0 || to >= lastSlot.length) return;
+        int latest = -1;
+        for (int i = 0; i < size; i++) {
+            int slot = heapSlot[i];
+            if (type[slot] == NetworkSimulator.FROMLAYER3 && entity[slot] == to &&
+                    (latest == -1 || heapTime[i] > heapTime[latest] ||
+                            (heapTime[i] == heapTime[latest] && heapOrder[i] > heapOrder[latest]))) {
+                latest = i;
+            }
+        }
+        lastSlot[to] = latest == -1 ? -1 : heapSlot[latest];
+        lastOrder[to] = latest == -1 ? 0 : heapOrder[latest];
+    }
+
+    private void removeAt(int index) {
+        int slot = heapSlot[index];
+        pos[slot] = -1;
+        packet[slot] = null;
+        freeSlots[nFree++] = slot;
+        --size;
+        if (index != size) {
+            move(size, index);
+            if (index > 0 && less(index, (index - 1) / 2)) {
+                siftUp(index);
+            } else {
+                siftDown(index);
+            }
+        }
+    }
+
+    private boolean less(int i, int j) {
+        return heapTime[i] < heapTime[j] ||
+                (heapTime[i] == heapTime[j] && heapOrder[i] < heapOrder[j]);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!less(index, parent)) break;
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) break;
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && less(right, left)) smallest = right;
+            if (!less(smallest, index)) break;
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void move(int from, int to) {
+        heapTime[to] = heapTime[from];
+        heapOrder[to] = heapOrder[from];
+        heapSlot[to] = heapSlot[from];
+        pos[heapSlot[to]] = to;
+    }
+
+    private void swap(int i, int j) {
+        double t = heapTime[i];
+        heapTime[i] = heapTime[j];
+        heapTime[j] = t;
+        long o = heapOrder[i];
+        heapOrder[i] = heapOrder[j];
+        heapOrder[j] = o;
+        int s = heapSlot[i];
+        heapSlot[i] = heapSlot[j];
+        heapSlot[j] = s;
+        pos[heapSlot[i]] = i;
+        pos[heapSlot[j]] = j;
+    }
+
+    private void grow() {
+        int capacity = heapSlot.length * 2;
+        heapTime = Arrays.copyOf(heapTime, capacity);
+        heapOrder = Arrays.copyOf(heapOrder, capacity);
+        heapSlot = Arrays.copyOf(heapSlot, capacity);
+        type = Arrays.copyOf(type, capacity);
+        entity = Arrays.copyOf(entity, capacity);
+        packet = Arrays.copyOf(packet, capacity);
+        handle = Arrays.copyOf(handle, capacity);
+        pos = Arrays.copyOf(pos, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+}
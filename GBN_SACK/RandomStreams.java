@@ -0,0 +1,62 @@
+/***************************************************************************
+ * ClassName: RandomStreams
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Random numbers of a simulation, in separate streams for
+ * each use so that changing how often one is drawn from does not shift
+ * the others. Chosen with -Drandom=legacy|xoshiro:
+ *
+ *     legacy   OSIRandom, the 32-bit LCG with 15 bits per number that the
+ *              simulator always used, same runs as before for a seed
+ *     xoshiro  XoshiroRandom, xoshiro256** with 53 bits per number and
+ *              jump-ahead for independent streams
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+
+public interface RandomStreams {
+    int ARRIVAL = 0;        // time between layer 5 messages
+    int LOSS = 1;           // whether a packet is lost
+    int DELAY = 2;          // transmission delay
+    int CORRUPT = 3;        // whether a packet is corrupted
+    int CORRUPTION = 4;     // which field gets corrupted
+    int STREAMS = 5;
+
+    // Checkpoint tags of the implementations
+    byte LEGACY = 0;
+    byte XOSHIRO = 1;
+
+    /**
+     * @return the next number of stream, uniform on [0, 1]
+     */
+    double nextDouble(int stream);
+
+    /**
+     * A generator that continues every stream exactly where this one is
+     */
+    RandomStreams copy();
+
+    /**
+     * A generator whose streams do not overlap with these, e.g. for the
+     * other side of the link or a parallel replication. Splitting the same
+     * state twice gives the same generator.
+     */
+    RandomStreams split();
+
+    /**
+     * Checkpointed state, read back by readFrom
+     */
+    void writeTo(ByteBuffer out);
+
+    static RandomStreams readFrom(ByteBuffer in) {
+        byte kind = in.get();
+        switch (kind) {
+            case LEGACY:
+                return new OSIRandom(in);
+            case XOSHIRO:
+                return new XoshiroRandom(in);
+            default:
+                throw new IllegalStateException("Unknown random generator " + kind);
+        }
+    }
+}
@@ -1,3 +1,4 @@
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -16,6 +17,8 @@ import java.util.NoSuchElementException;
 
 public class Receiver extends AbstractHost {
     private Packet[] rcvBuff;     // only for buffering packets with acks within (expectSeq, expectSeq + 5)
+    private PacketArena arena;    // with an arena, rcvBuff is null and handles buffers them instead
+    private int[] handles;
     private int buffSize;
     private int rcvdSeq;
     private int expectSeq;
@@ -31,13 +34,122 @@ public class Receiver extends AbstractHost {
     }
 
     public Receiver(int buffCap, int seqSpace) {
+        this(1, buffCap, seqSpace);
+    }
+
+    /**
+     * Receiver of entity id, the receiver of its flow when there are several
+     */
+    public Receiver(int id, int buffCap, int seqSpace) {
+        this(id, buffCap, seqSpace, null);
+    }
+
+    /**
+     * Same, buffering its packets in arena if not null
+     */
+    public Receiver(int id, int buffCap, int seqSpace, PacketArena arena) {
         super();
-        this.id = 1;
+        this.id = id;
         this.rcvdSeq = 0;
         this.expectSeq = 1;
         this.seqSpace = seqSpace;
         this.buffSize = 0;
-        this.rcvBuff = new Packet[buffCap];
+        initBuffer(buffCap, arena);
+    }
+
+    /**
+     * Snapshot of another receiver, used to roll it back
+     */
+    public Receiver(Receiver other) {
+        super();
+        this.id = other.id;
+        this.seqSpace = other.seqSpace;
+        this.rcvdSeq = other.rcvdSeq;
+        this.expectSeq = other.expectSeq;
+        this.buffSize = other.buffSize;
+        if (other.arena == null) {
+            this.rcvBuff = other.rcvBuff.clone();
+        } else {
+            this.arena = other.arena;
+            this.handles = other.handles.clone();
+            for (int h : handles) {
+                if (h != PacketArena.NIL) {
+                    arena.retain(h);
+                }
+            }
+        }
+    }
+
+    /**
+     * Receiver read back from a checkpoint written by writeTo
+     */
+    public Receiver(ByteBuffer in) {
+        this(in, null);
+    }
+
+    /**
+     * Same, buffering its packets in arena if not null
+     */
+    public Receiver(ByteBuffer in, PacketArena arena) {
+        super();
+        this.id = in.getInt();
+        this.seqSpace = in.getInt();
+        this.rcvdSeq = in.getInt();
+        this.expectSeq = in.getInt();
+        this.buffSize = in.getInt();
+        initBuffer(in.getInt(), arena);
+        for (int i = 0; i < getBufferCapacity(); i++) {
+            if (in.get() != 0) {
+                store(i, Packet.decode(in));
+            }
+        }
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.putInt(id).putInt(seqSpace).putInt(rcvdSeq).putInt(expectSeq).putInt(buffSize);
+        out.putInt(getBufferCapacity());
+        for (int i = 0; i < getBufferCapacity(); i++) {
+            Packet p = buffered(i);
+            out.put((byte) (p == null ? 0 : 1));
+            if (p != null) {
+                p.encode(out);
+            }
+        }
+    }
+
+    private void initBuffer(int buffCap, PacketArena arena) {
+        this.arena = arena;
+        if (arena == null) {
+            this.rcvBuff = new Packet[buffCap];
+        } else {
+            this.handles = new int[buffCap];
+            Arrays.fill(handles, PacketArena.NIL);
+        }
+    }
+
+    // The packet buffered at index, null if none
+    private Packet buffered(int index) {
+        if (arena == null) {
+            return rcvBuff[index];
+        }
+        return handles[index] == PacketArena.NIL ? null : arena.get(handles[index]);
+    }
+
+    private boolean isBuffered(int index) {
+        return arena == null ? rcvBuff[index] != null : handles[index] != PacketArena.NIL;
+    }
+
+    // Buffer pkt at index, in place of what was there
+    private void store(int index, Packet pkt) {
+        if (arena == null) {
+            rcvBuff[index] = pkt;
+            return;
+        }
+        int h = arena.adopt(pkt);
+        if (handles[index] != PacketArena.NIL) {
+            arena.release(handles[index]);
+        }
+        handles[index] = h;
     }
 
 
@@ -68,7 +180,7 @@ public class Receiver extends AbstractHost {
         // buffer packets starting with [expectPkt, ) first
         int index = shoudBuffer(seq);
         if (index >= 0) {
-            this.rcvBuff[index] = pkt;
+            store(index, pkt);
             ++this.buffSize;
         }
         if (seq == this.expectSeq) {
@@ -84,10 +196,17 @@ public class Receiver extends AbstractHost {
      * @return not null first element
      */
     public Packet poll() {
-        Packet firstPkt = this.rcvBuff[0];
+        Packet firstPkt = buffered(0);
         if (isBufferEmpty() || firstPkt == null) {
             throw new RuntimeException("Polling from receiver should never happen without a not-null fist element");
         }
+        if (arena != null) {
+            arena.release(handles[0]);
+            System.arraycopy(handles, 1, handles, 0, handles.length - 1);
+            handles[handles.length - 1] = PacketArena.NIL;
+            --this.buffSize;
+            return firstPkt;
+        }
         for (int i = 0; i < rcvBuff.length; ++i) {
             if (i == rcvBuff.length - 1) {
                 rcvBuff[i] = null;
@@ -104,6 +223,10 @@ public class Receiver extends AbstractHost {
         int[] sacks = new int[capacity];
         Packet pkt = null;
         for (int i = 0; i < capacity; ++i) {
+            if (arena != null) {
+                sacks[i] = handles[i] != PacketArena.NIL ? arena.seqnum(handles[i]) : 0;
+                continue;
+            }
             pkt = this.rcvBuff[i];
             sacks[i] = (pkt != null) ? pkt.getSeqnum() : 0;
         }
@@ -124,7 +247,16 @@ public class Receiver extends AbstractHost {
     }
 
     public void resetBuffer() {
-        Arrays.fill(rcvBuff, null);
+        if (arena == null) {
+            Arrays.fill(rcvBuff, null);
+        } else {
+            for (int i = 0; i < handles.length; i++) {
+                if (handles[i] != PacketArena.NIL) {
+                    arena.release(handles[i]);
+                    handles[i] = PacketArena.NIL;
+                }
+            }
+        }
         this.buffSize = 0;
     }
 
@@ -141,7 +273,7 @@ public class Receiver extends AbstractHost {
     }
 
     public int getBufferCapacity() {
-        return this.rcvBuff.length;
+        return arena == null ? this.rcvBuff.length : this.handles.length;
     }
 
     public int getExpectSeq() {
@@ -163,8 +295,15 @@ public class Receiver extends AbstractHost {
 
         RcvBuffIterator() {
             this.curIndex = 0;
-            this.snapshot = new Packet[rcvBuff.length];
-            System.arraycopy(rcvBuff, 0, snapshot, 0, rcvBuff.length);
+            this.snapshot = new Packet[getBufferCapacity()];
+            if (arena == null) {
+                System.arraycopy(rcvBuff, 0, snapshot, 0, rcvBuff.length);
+                return;
+            }
+            // only the continuous ones are ever read
+            for (int i = 0; i < snapshot.length && isBuffered(i); i++) {
+                snapshot[i] = buffered(i);
+            }
         }
 
         @Override
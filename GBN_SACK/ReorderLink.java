@@ -0,0 +1,100 @@
+/***************************************************************************
+ * ClassName: ReorderLink
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: UniformLink that reorders (-Dlink=reorder:p,d[,exp]). A
+ * packet arrives 1 to 10 time units after the later of now and the last
+ * packet that was not displaced. With probability p it is displaced: it
+ * is held back an extra time, uniform on [0, d], or exponential with mean
+ * d with ",exp", and the packets sent after it do not wait for it. Those
+ * that arrive earlier overtake it, so the receiver sees gaps that later
+ * fill in, and the sender sees duplicate ACKs for packets that were never
+ * lost.
+ *
+ * "reorder" on its own displaces one packet in 10 by up to 20 time units.
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+
+public class ReorderLink implements LinkModel {
+    private final double probability;
+    private final double displacement;
+    private final boolean exponential;
+    private double lastInOrder;     // arrival of the last packet not displaced
+
+    // statistics
+    private long packets;
+    private long displaced;
+
+    public ReorderLink(double probability, double displacement, boolean exponential) {
+        if (probability < 0 || probability > 1 || displacement < 0) {
+            throw new IllegalArgumentException("Reordering needs p in [0, 1] and d >= 0: p " +
+                    probability + ", d " + displacement);
+        }
+        this.probability = probability;
+        this.displacement = displacement;
+        this.exponential = exponential;
+    }
+
+    /**
+     * Parse the "p,d[,exp]" after "reorder:"
+     */
+    public static ReorderLink parse(String args) {
+        if (args == null || args.isEmpty()) {
+            return new ReorderLink(0.1, 20, false);
+        }
+        String[] a = args.split(",");
+        if (a.length < 2 || a.length > 3 || (a.length == 3 && !a[2].trim().equals("exp"))) {
+            throw new IllegalArgumentException("Expected reorder:p,d or reorder:p,d,exp " +
+                    "but got reorder:" + args);
+        }
+        return new ReorderLink(Double.parseDouble(a[0].trim()), Double.parseDouble(a[1].trim()),
+                a.length == 3);
+    }
+
+    public double arrival(Packet p, double now, double lastArrival, RandomStreams r) {
+        double arrivalTime = Math.max(now, lastInOrder) + 1 + (r.nextDouble(RandomStreams.DELAY) * 9);
+        packets++;
+
+        if (r.nextDouble(RandomStreams.DELAY) < probability) {
+            displaced++;
+            double x = r.nextDouble(RandomStreams.DELAY);
+            return arrivalTime + (exponential ?
+                    -displacement * Math.log(1 - Math.min(x, 1 - 1e-9)) : x * displacement);
+        }
+        lastInOrder = arrivalTime;
+        return arrivalTime;
+    }
+
+    public double minDelay() {
+        return 1.0;
+    }
+
+    public LinkModel copy() {
+        ReorderLink c = new ReorderLink(probability, displacement, exponential);
+        c.lastInOrder = lastInOrder;
+        c.packets = packets;
+        c.displaced = displaced;
+        return c;
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.put(REORDER);
+        out.putDouble(lastInOrder).putLong(packets).putLong(displaced);
+    }
+
+    public void readFrom(ByteBuffer in) {
+        if (in.get() != REORDER) {
+            throw new IllegalStateException("Saved with another link model than reorder");
+        }
+        lastInOrder = in.getDouble();
+        packets = in.getLong();
+        displaced = in.getLong();
+    }
+
+    public String report(double end) {
+        return String.format("reorder p %.4f, %s displacement %.2f: %d packets, %d displaced (%.2f%%)",
+                probability, exponential ? "exponential" : "uniform", displacement, packets,
+                displaced, packets == 0 ? 0.0 : 100.0 * displaced / packets);
+    }
+}
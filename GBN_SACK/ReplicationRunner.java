@@ -0,0 +1,193 @@
+/***************************************************************************
+ * ClassName: ReplicationRunner
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Runs the same configuration with several consecutive seeds
+ * at once on a ForkJoinPool and reports each statistic as a mean with a 95%
+ * confidence interval (Student t over the replicas). Every replica has its
+ * own StudentNetworkSimulator, layer 5 output and console. Both are thrown
+ * away unless -Dkeep=true, which writes them to OutputFile.<seed> and
+ * Console.<seed>.
+ *
+ *     java ReplicationRunner replicas messages loss corrupt delay
+ *                            windowsize timeout [firstseed] [threads]
+ ****************************************************************************/
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class ReplicationRunner {
+    public static final String[] STATISTICS = {
+            "Throughput", "Goodput", "Average RTT",
+            "Average communication time", "Retransmissions"};
+
+    // 97.5% quantiles of Student's t for 1..30 degrees of freedom
+    private static final double[] T_975 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+    private final int nsim;
+    private final double loss;
+    private final double corrupt;
+    private final double delay;
+    private final int windowsize;
+    private final double timeout;
+    private final boolean keep;
+
+    public ReplicationRunner(int nsim, double loss, double corrupt, double delay,
+                             int windowsize, double timeout, boolean keep) {
+        this.nsim = nsim;
+        this.loss = loss;
+        this.corrupt = corrupt;
+        this.delay = delay;
+        this.windowsize = windowsize;
+        this.timeout = timeout;
+        this.keep = keep;
+    }
+
+    /**
+     * Run one replica per seed in pool.
+     *
+     * @return one row per seed, the columns in the order of STATISTICS
+     */
+    public double[][] run(int firstSeed, int replicas, ForkJoinPool pool) {
+        List<Callable<double[]>> tasks = new ArrayList<>(replicas);
+        for (int i = 0; i < replicas; i++) {
+            final int seed = firstSeed + i;
+            tasks.add(() -> replicate(seed));
+        }
+        List<Future<double[]>> futures = pool.invokeAll(tasks);
+        double[][] results = new double[replicas][];
+        for (int i = 0; i < replicas; i++) {
+            try {
+                results[i] = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for seed " + (firstSeed + i), e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Replica with seed " + (firstSeed + i) + " failed", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Run a single replica
+     *
+     * @return its statistics in the order of STATISTICS
+     */
+    public double[] replicate(int seed) throws IOException {
+        // the simulator closes output when it finishes, closing it again is harmless
+        try (OutputStream output = keep ? new BufferedOutputStream(new FileOutputStream("OutputFile." + seed)) :
+                OutputStream.nullOutputStream();
+             PrintStream console = keep ?
+                     new PrintStream(new BufferedOutputStream(new FileOutputStream("Console." + seed))) :
+                     new PrintStream(OutputStream.nullOutputStream())) {
+            StudentNetworkSimulator simulator = new StudentNetworkSimulator(nsim, loss, corrupt, delay,
+                    0, seed, windowsize, timeout, output, console);
+            simulator.runSimulator();
+            return new double[]{
+                    simulator.getThroughput(),
+                    simulator.getGoodput(),
+                    simulator.getAvgRTT(),
+                    simulator.getAvgCOMM(),
+                    simulator.getRetransmissions()};
+        }
+    }
+
+    /**
+     * Mean and half width of the 95% confidence interval of one column.
+     * Replicas where the statistic is undefined (NaN or infinite, e.g. no
+     * valid RTT sample) are left out.
+     *
+     * @return {mean, half width, replicas used}
+     */
+    public static double[] summarize(double[][] results, int column) {
+        int n = 0;
+        double sum = 0;
+        for (double[] row : results) {
+            if (Double.isFinite(row[column])) {
+                sum += row[column];
+                ++n;
+            }
+        }
+        if (n == 0) {
+            return new double[]{Double.NaN, Double.NaN, 0};
+        }
+        double mean = sum / n;
+        if (n == 1) {
+            return new double[]{mean, Double.NaN, 1};
+        }
+        double squares = 0;
+        for (double[] row : results) {
+            if (Double.isFinite(row[column])) {
+                double d = row[column] - mean;
+                squares += d * d;
+            }
+        }
+        double stddev = Math.sqrt(squares / (n - 1));
+        return new double[]{mean, t975(n - 1) * stddev / Math.sqrt(n), n};
+    }
+
+    /*
+     * Table for small samples, Cornish-Fisher expansion around the normal
+     * quantile beyond it (off by less than 0.001 from 31 on)
+     */
+    private static double t975(int df) {
+        if (df <= T_975.length) {
+            return T_975[df - 1];
+        }
+        double z = 1.959964;
+        double z3 = z * z * z;
+        double z5 = z3 * z * z;
+        return z + (z3 + z) / (4.0 * df) + (5 * z5 + 16 * z3 + 3 * z) / (96.0 * df * df);
+    }
+
+    public static void main(String[] argv) {
+        if (argv.length < 7) {
+            System.out.println("usage: java ReplicationRunner replicas messages loss corrupt delay " +
+                    "windowsize timeout [firstseed] [threads]");
+            System.exit(1);
+        }
+        int replicas = Integer.parseInt(argv[0]);
+        int nsim = Integer.parseInt(argv[1]);
+        double loss = Double.parseDouble(argv[2]);
+        double corrupt = Double.parseDouble(argv[3]);
+        double delay = Double.parseDouble(argv[4]);
+        int windowsize = Integer.parseInt(argv[5]);
+        double timeout = Double.parseDouble(argv[6]);
+        int firstSeed = argv.length > 7 ? Integer.parseInt(argv[7]) : 1;
+        int threads = argv.length > 8 ? Integer.parseInt(argv[8]) :
+                Runtime.getRuntime().availableProcessors();
+        if (replicas < 1 || nsim < 1 || windowsize < 1 || threads < 1) {
+            System.out.println("replicas, messages, windowsize and threads must be > 0");
+            System.exit(1);
+        }
+
+        ReplicationRunner runner = new ReplicationRunner(nsim, loss, corrupt, delay,
+                windowsize, timeout, Boolean.getBoolean("keep"));
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        double[][] results;
+        try {
+            results = runner.run(firstSeed, replicas, pool);
+        } finally {
+            pool.shutdown();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d replicas (seeds %d..%d) on %d threads in %.2f s%n",
+                replicas, firstSeed, firstSeed + replicas - 1, threads, elapsed);
+        System.out.printf("%-28s %12s %12s %4s%n", "Statistic", "Mean", "95% CI +/-", "n");
+        for (int i = 0; i < STATISTICS.length; i++) {
+            double[] s = summarize(results, i);
+            System.out.printf("%-28s %12.4f %12.4f %4d%n", STATISTICS[i], s[0], s[1], (int) s[2]);
+        }
+    }
+}
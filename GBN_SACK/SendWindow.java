@@ -1,3 +1,4 @@
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -30,6 +31,26 @@ public class SendWindow implements Iterable<Integer> {
 
     }
 
+    public SendWindow(SendWindow other) {
+        this.base = other.base;
+        this.next = other.next;
+        this.size = other.size;
+        this.buffCap = other.buffCap;
+        this.buffSize = other.buffSize;
+    }
+
+    public SendWindow(ByteBuffer in) {
+        this.base = in.getInt();
+        this.next = in.getInt();
+        this.size = in.getInt();
+        this.buffCap = in.getInt();
+        this.buffSize = in.getInt();
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.putInt(base).putInt(next).putInt(size).putInt(buffCap).putInt(buffSize);
+    }
+
     public int getBase() {
         return this.base;
     }
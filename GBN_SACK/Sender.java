@@ -1,3 +1,4 @@
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /***************************************************************************
@@ -36,12 +37,26 @@ public class Sender extends AbstractHost {
     }
 
     public Sender(int buffCapacity, int windowSize, int seqSpace) {
+        this(0, buffCapacity, windowSize, seqSpace);
+    }
+
+    /**
+     * Sender of entity id, the sender of its flow when there are several
+     */
+    public Sender(int id, int buffCapacity, int windowSize, int seqSpace) {
+        this(id, buffCapacity, windowSize, seqSpace, null);
+    }
+
+    /**
+     * Same, buffering its packets in arena if not null
+     */
+    public Sender(int id, int buffCapacity, int windowSize, int seqSpace, PacketArena arena) {
         super();
         if (buffCapacity < windowSize) {
             throw new IllegalArgumentException("Sender window size must <= buffer capacity");
         }
-        this.id = 0;
-        this.sndBuff = new Buffer<Packet>(buffCapacity);
+        this.id = id;
+        this.sndBuff = arena == null ? new Buffer<Packet>(buffCapacity) : new ArenaBuffer(buffCapacity, arena);
         this.rtt = new RTTtimer(buffCapacity);
         this.sndWindow = new SendWindow(windowSize, buffCapacity);
         this.bitMap = new boolean[50];
@@ -49,6 +64,59 @@ public class Sender extends AbstractHost {
         this.seqSpace = seqSpace;
     }
 
+    /**
+     * Snapshot of another sender, used to roll it back. Buffered packets
+     * are shared, they never change once buffered.
+     */
+    public Sender(Sender other) {
+        super();
+        this.id = other.id;
+        this.seqSpace = other.seqSpace;
+        this.sndBuff = other.sndBuff instanceof ArenaBuffer ?
+                new ArenaBuffer((ArenaBuffer) other.sndBuff) : new Buffer<Packet>(other.sndBuff);
+        this.sndWindow = new SendWindow(other.sndWindow);
+        this.rtt = new RTTtimer(other.rtt);
+        this.bitMap = other.bitMap.clone();
+        this.usedSeq = other.usedSeq;
+        this.flipCount = other.flipCount;
+    }
+
+    /**
+     * Sender read back from a checkpoint written by writeTo
+     */
+    public Sender(ByteBuffer in) {
+        this(in, null);
+    }
+
+    /**
+     * Same, buffering its packets in arena if not null
+     */
+    public Sender(ByteBuffer in, PacketArena arena) {
+        super();
+        this.id = in.getInt();
+        this.seqSpace = in.getInt();
+        this.usedSeq = in.getInt();
+        this.flipCount = in.getInt();
+        this.bitMap = new boolean[in.getInt()];
+        for (int i = 0; i < bitMap.length; i++) {
+            this.bitMap[i] = in.get() != 0;
+        }
+        this.sndBuff = arena == null ? new Buffer<Packet>(in, Packet::decode) : new ArenaBuffer(in, arena);
+        this.sndWindow = new SendWindow(in);
+        this.rtt = new RTTtimer(in);
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.putInt(id).putInt(seqSpace).putInt(usedSeq).putInt(flipCount);
+        out.putInt(bitMap.length);
+        for (boolean bit : bitMap) {
+            out.put((byte) (bit ? 1 : 0));
+        }
+        sndBuff.writeTo(out, (o, p) -> p.encode(o));
+        sndWindow.writeTo(out);
+        rtt.writeTo(out);
+    }
+
     /**
      * Construct a packet for a incoming message
      * Buffer the packet and update Seqnum
@@ -273,6 +341,9 @@ public class Sender extends AbstractHost {
 
 
     private int getBaseSeq() {
+        if (sndBuff instanceof ArenaBuffer) {
+            return ((ArenaBuffer) sndBuff).getSeqnum(sndWindow.getBase());
+        }
         return sndBuff.get(sndWindow.getBase()).getSeqnum();
     }
 
@@ -333,6 +404,30 @@ public class Sender extends AbstractHost {
             this.commCount = 0;
         }
 
+        private RTTtimer(RTTtimer other) {
+            this.rttBuff = new Buffer<>(other.rttBuff);
+            this.commBuff = new Buffer<>(other.commBuff);
+            this.cumuRTT = other.cumuRTT;
+            this.rttCount = other.rttCount;
+            this.cumuCOMM = other.cumuCOMM;
+            this.commCount = other.commCount;
+        }
+
+        private RTTtimer(ByteBuffer in) {
+            this.rttBuff = new Buffer<Double>(in, ByteBuffer::getDouble);
+            this.commBuff = new Buffer<Double>(in, ByteBuffer::getDouble);
+            this.cumuRTT = in.getDouble();
+            this.rttCount = in.getInt();
+            this.cumuCOMM = in.getDouble();
+            this.commCount = in.getInt();
+        }
+
+        private void writeTo(ByteBuffer out) {
+            this.rttBuff.writeTo(out, ByteBuffer::putDouble);
+            this.commBuff.writeTo(out, ByteBuffer::putDouble);
+            out.putDouble(cumuRTT).putInt(rttCount).putDouble(cumuCOMM).putInt(commCount);
+        }
+
         /**
          * Only for RTT buffer, When having a retransmission,
          * signal the range of sent of send window in sendTime buffer
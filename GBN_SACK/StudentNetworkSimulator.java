@@ -1,3 +1,6 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 public class StudentNetworkSimulator extends NetworkSimulator {
@@ -5,22 +8,38 @@ public class StudentNetworkSimulator extends NetworkSimulator {
      * Predefined Constants (static member variables):
      *
      *   int MAXDATASIZE : the maximum size of the Message data and
-     *                     Packet payload
+     *                     Packet payload, set with -Dmtu=bytes
      *
      *   int A           : a predefined integer that represents entity A
      *   int B           : a predefined integer that represents entity B
      *
+     * Predefined Static Methods:
+     *
+     *  int sender(int flow), int receiver(int flow):
+     *       The entity sending and the entity receiving in "flow". With
+     *       -Dflows=N there are N flows, flow 0 sends from A to B
+     *  int flowOf(int entity):
+     *       The flow "entity" belongs to
+     *  boolean isSender(int entity):
+     *       Whether "entity" is the sending side of its flow
+     *
      * Predefined Member Methods:
      *
      *  void stopTimer(int entity):
      *       Stops the timer running at "entity" [A or B]
-     *  void startTimer(int entity, double increment):
+     *  void stopTimer(Event timer):
+     *       Stops the timer returned by startTimer or restartTimer
+     *  Event startTimer(int entity, double increment):
      *       Starts a timer running at "entity" [A or B], which will expire in
      *       "increment" time units, causing the interrupt handler to be
      *       called.  You should only call this with A.
+     *       Returns the timer, which can be passed to stopTimer(Event)
+     *  Event restartTimer(int entity, double increment):
+     *       Same as stopTimer(entity) followed by startTimer(entity,
+     *       increment), but cheaper
      *  void toLayer3(int callingEntity, Packet p)
      *       Puts the packet "p" into the network from "callingEntity" [A or B]
-     *  void toLayer5(String dataSent)
+     *  void toLayer5(byte[] dataSent)
      *       Passes "dataSent" up to layer 5
      *  double getTime()
      *       Returns the current time in the simulator.  Might be useful for
@@ -30,53 +49,59 @@ public class StudentNetworkSimulator extends NetworkSimulator {
      *  void printEventList()
      *       Prints the current event list to stdout.  Might be useful for
      *       debugging, but probably not.
+     *  int getNumFlows()
+     *       Returns the number of flows
+     *  PacketArena getArena()
+     *       With -Darena=true, where to keep the packets you buffer: see
+     *       PacketArena, Sender and Receiver. null otherwise
+     *
+     *  Every routine you write below has a version with an extra "flow"
+     *  argument, which is the one called when there is more than one flow.
+     *
+     *  Predefined Member Variables:
+     *
+     *  PrintStream console
+     *       Where to print, stdout unless the simulator was built with
+     *       another stream
      *
      *
      *  Predefined Classes:
      *
      *  Message: Used to encapsulate a message coming from layer 5
      *    Constructor:
-     *      Message(String inputData):
-     *          creates a new Message containing "inputData"
+     *      Message(byte[] inputData):
+     *          creates a new Message containing "inputData", not a copy
      *    Methods:
-     *      boolean setData(String inputData):
+     *      boolean setData(byte[] inputData):
      *          sets an existing Message's data to "inputData"
      *          returns true on success, false otherwise
-     *      String getData():
-     *          returns the data contained in the message
-     *  Packet: Used to encapsulate a packet
+     *      byte[] getData():
+     *          returns the data contained in the message, not a copy
+     *  Packet: Used to encapsulate a packet, which cannot be changed once
+     *  built; the simulator and your code may hold on to the same one
      *    Constructors:
-     *      Packet (Packet p):
-     *          creates a new Packet that is a copy of "p"
-     *      Packet (int seq, int ack, int check, String newPayload)
+     *      Packet (int seq, int ack, int check, byte[] newPayload, int[] sack)
      *          creates a new Packet with a sequence field of "seq", an
      *          ack field of "ack", a checksum field of "check", and a
-     *          payload of "newPayload"
+     *          payload of "newPayload" and a sack of "sack"
      *      Packet (int seq, int ack, int check)
      *          chreate a new Packet with a sequence field of "seq", an
      *          ack field of "ack", a checksum field of "check", and
      *          an empty payload
      *    Methods:
-     *      boolean setSeqnum(int n)
-     *          sets the Packet's sequence field to "n"
-     *          returns true on success, false otherwise
-     *      boolean setAcknum(int n)
-     *          sets the Packet's ack field to "n"
-     *          returns true on success, false otherwise
-     *      boolean setChecksum(int n)
-     *          sets the Packet's checksum to "n"
-     *          returns true on success, false otherwise
-     *      boolean setPayload(String newPayload)
-     *          sets the Packet's payload to "newPayload"
-     *          returns true on success, false otherwise
+     *      Packet withSeqnum(int n), Packet withAcknum(int n),
+     *      Packet withPayload(byte[] newPayload)
+     *          returns a copy of the Packet with the sequence field, ack
+     *          field or payload changed
      *      int getSeqnum()
      *          returns the contents of the Packet's sequence field
      *      int getAcknum()
      *          returns the contents of the Packet's ack field
      *      int getChecksum()
      *          returns the checksum of the Packet
-     *      int getPayload()
-     *          returns the Packet's payload
+     *      byte[] getPayload()
+     *          returns the Packet's payload, which is shared and must not
+     *          be changed in place
      *
      */
 
@@ -96,9 +121,8 @@ public class StudentNetworkSimulator extends NetworkSimulator {
     // state information for A or B.
     // Also add any necessary methods (e.g. checksum of a String)
     // custom code starts here
-    private Sender snder;
-    private Receiver rcver;
-    // Statistics
+    private Flow[] flows;           // sender, receiver and statistics of each flow
+    // Statistics, added up over all flows at the end
     private int numOTN;             // Number of original packets transmitted by A
     private int numRTN;             // Number of retransmissions by A
     private int numToLayer5B;       // Number of data packets delivered to layer 5 at B
@@ -133,14 +157,37 @@ public class StudentNetworkSimulator extends NetworkSimulator {
         RxmtInterval = delay;
     }
 
+    // Same, but with its own layer 5 output and console, see NetworkSimulator
+    public StudentNetworkSimulator(int numMessages,
+                                   double loss,
+                                   double corrupt,
+                                   double avgDelay,
+                                   int trace,
+                                   int seed,
+                                   int winsize,
+                                   double delay,
+                                   OutputStream output,
+                                   PrintStream console) {
+        super(numMessages, loss, corrupt, avgDelay, trace, seed, output, console);
+        WindowSize = winsize;
+        LimitSeqNo = winsize * 2;
+        RxmtInterval = delay;
+    }
+
 
     // This routine will be called whenever the upper layer at the sender [A]
     // has a message to send.  It is the job of your protocol to insure that
     // the data in such a message is delivered in-order, and correctly, to
     // the receiving upper layer.
     protected void aOutput(Message message) {
+        aOutput(0, message);
+    }
+
+    protected void aOutput(int flow, Message message) {
+        Flow f = flows[flow];
+        Sender snder = f.snder;
         if (!snder.output(message)) {
-            System.out.println("Send buffer is full, drop incoming message");
+            console.println("Send buffer is full, drop incoming message");
             return;
 //            throw new RuntimeException("Buffer is full");
         }
@@ -153,10 +200,10 @@ public class StudentNetworkSimulator extends NetworkSimulator {
         while (it.hasNext()) {
             Packet pkt = snder.get(it.next());
             snder.rtt.addSent(getTime());
-            if (firstSentTime == 0) this.firstSentTime = getTime();
+            if (f.firstSentTime == 0) f.firstSentTime = getTime();
             toLayer3(snder.id, pkt);
-            ++this.numOTN;
-            System.out.println("Sender: sent a packet: " + pkt.toString());
+            ++f.numOTN;
+            console.println("Sender: sent a packet: " + pkt.toString());
             // window.next + 1
             snder.updateNextToSend();
         }
@@ -167,11 +214,17 @@ public class StudentNetworkSimulator extends NetworkSimulator {
     // arrives at the A-side.  "packet" is the (possibly corrupted) packet
     // sent from the B-side.
     protected void aInput(Packet packet) {
-        System.out.println("Sender: received: " + packet.toString());
+        aInput(0, packet);
+    }
+
+    protected void aInput(int flow, Packet packet) {
+        Flow f = flows[flow];
+        Sender snder = f.snder;
+        console.println("Sender: received: " + packet.toString());
         double rcvdTime = getTime();
         // check corruption, drop if corrupt
         if (ChecksumUtil.isCorrupted(packet)) {
-            ++this.numCorrupt;
+            ++f.numCorruptA;
             return;
         }
         // check whether the ACK is the expecting cumulative ACK
@@ -182,13 +235,13 @@ public class StudentNetworkSimulator extends NetworkSimulator {
         if (indexes.size() > 0) {
             // has some Bitmap updates
             snder.rtt.addRcvdCOMM(rcvdTime, indexes);
-            this.lastRcvdTime = rcvdTime;
+            f.lastRcvdTime = rcvdTime;
         } else ;// bitMap already update to date
 
         if (isExpectSeq) {
             // received a qualified ACK
             // stop and start timer
-            System.out.println("Sender: PACKET QUALIFIED >> PASS TOLAYER5 AND SLIDE SEND WINDOW");
+            console.println("Sender: PACKET QUALIFIED >> PASS TOLAYER5 AND SLIDE SEND WINDOW");
             snder.rtt.addRcvdRTT(rcvdTime, packet.getAcknum());
             stopTimer(snder.id());
             // checking bitmap to update base and slide right the window
@@ -198,14 +251,13 @@ public class StudentNetworkSimulator extends NetworkSimulator {
             }
         } else {
             // Duplicate ACK, retransmit the first unACK’ed data packet
-            System.out.println("Sender: packet has DUPLICATED ACK");
+            console.println("Sender: packet has DUPLICATED ACK");
             LinkedList<Packet> packetList = snder.retransmit();
-            stopTimer(snder.id());
-            startTimer(snder.id(), RxmtInterval);
+            restartTimer(snder.id(), RxmtInterval);
             if (!packetList.isEmpty()) {
-                System.out.println("Sender: RETRANSMIT due to DUPLICATED ACK: " + packetList.toString());
+                console.println("Sender: RETRANSMIT due to DUPLICATED ACK: " + packetList.toString());
                 toLayer3(snder.id(), packetList.peek());
-                ++this.numRTN;
+                ++f.numRTN;
                 snder.rtt.setToRetransmission();
             }
 
@@ -217,15 +269,20 @@ public class StudentNetworkSimulator extends NetworkSimulator {
     // the retransmission of packets. See startTimer() and stopTimer(), above,
     // for how the timer is started and stopped. 
     protected void aTimerInterrupt() {
-        System.out.println("Sender: TIMEOUT");
+        aTimerInterrupt(0);
+    }
+
+    protected void aTimerInterrupt(int flow) {
+        Flow f = flows[flow];
+        Sender snder = f.snder;
+        console.println("Sender: TIMEOUT");
         List<Packet> packetList = snder.retransmit();
         if (!packetList.isEmpty()) {
-            stopTimer(snder.id());
-            startTimer(snder.id(), RxmtInterval);
-            System.out.println("Sender: RETRANSMIT due to TIMEOUT: " + packetList.toString());
+            restartTimer(snder.id(), RxmtInterval);
+            console.println("Sender: RETRANSMIT due to TIMEOUT: " + packetList.toString());
             for (Packet pkt : packetList) {
                 toLayer3(snder.id(), pkt);
-                ++this.numRTN;
+                ++f.numRTN;
             }
             snder.rtt.setToRetransmission();
         }
@@ -237,7 +294,11 @@ public class StudentNetworkSimulator extends NetworkSimulator {
     // initialization (e.g. of member variables you add to control the state
     // of entity A).
     protected void aInit() {
-        this.snder = new Sender(50, this.WindowSize, this.LimitSeqNo);
+        aInit(0);
+    }
+
+    protected void aInit(int flow) {
+        flow(flow).snder = new Sender(sender(flow), 50, this.WindowSize, this.LimitSeqNo, getArena());
     }
 
     // This routine will be called whenever a packet sent from the B-side 
@@ -245,22 +306,28 @@ public class StudentNetworkSimulator extends NetworkSimulator {
     // arrives at the B-side.  "packet" is the (possibly corrupted) packet
     // sent from the A-side.
     protected void bInput(Packet packet) {
+        bInput(0, packet);
+    }
+
+    protected void bInput(int flow, Packet packet) {
+        Flow f = flows[flow];
+        Receiver rcver = f.rcver;
 //        System.out.println("Receiver: received: " + packet.toString());
         // Check corruption, drop and NACK if corrupted
         boolean corrupted = false;
         if (ChecksumUtil.isCorrupted(packet)) {
-            ++numCorrupt;
+            ++f.numCorruptB;
             corrupted = true;
         }
         // If received an exactly expected packet
         // Pass payloads to Layer 5 of expected packet and buffered packets
 
         if (!corrupted  && rcver.hasSeqnum(packet)) {
-            System.out.println("Receiver: PACKET QUALIFIED >> PASS TOLAYER5 and UPDATE CUMULATIVE ACK");
+            console.println("Receiver: PACKET QUALIFIED >> PASS TOLAYER5 and UPDATE CUMULATIVE ACK");
             Iterator<Packet> it = rcver.iterator();
             while (it.hasNext()) {
                 toLayer5(it.next().getPayload());
-                ++this.numToLayer5B;
+                ++f.numToLayer5B;
                 rcver.poll();
                 rcver.addCumuAck();
                 rcver.addExpectSeq();
@@ -268,15 +335,15 @@ public class StudentNetworkSimulator extends NetworkSimulator {
             // Ack back for qualified packet with updated cumu ack and sack
             Packet ackPacket = rcver.ackPacket();
             toLayer3(rcver.id(), ackPacket);
-            ++this.numACK;
-            System.out.println("Receiver: ACK: " + ackPacket.toString());
+            ++f.numACK;
+            console.println("Receiver: ACK: " + ackPacket.toString());
             return;
         }
         // Ack back for unqualified packets
         Packet ackPacket = rcver.ackPacket();
         toLayer3(rcver.id(), ackPacket);
-        ++this.numACK;
-         System.out.println("Receiver: NACK: " + ackPacket.toString());
+        ++f.numACK;
+         console.println("Receiver: NACK: " + ackPacket.toString());
 
     }
 
@@ -285,47 +352,224 @@ public class StudentNetworkSimulator extends NetworkSimulator {
     // initialization (e.g. of member variables you add to control the state
     // of entity B).
     protected void bInit() {
-        this.rcver = new Receiver(5, this.LimitSeqNo);
+        bInit(0);
+    }
+
+    protected void bInit(int flow) {
+        flow(flow).rcver = new Receiver(receiver(flow), 5, this.LimitSeqNo, getArena());
+    }
+
+    // Flow f, created by the first of its init routines
+    private Flow flow(int f) {
+        if (flows == null) flows = new Flow[getNumFlows()];
+        if (flows[f] == null) flows[f] = new Flow();
+        return flows[f];
     }
 
     // Use to print final statistics
     protected void Simulation_done() {
+        // Add up all flows
+        double cumuRTT = 0;
+        int rttCount = 0;
+        int bitMapUpdates = 0;
+        for (Flow f : flows) {
+            numOTN += f.numOTN;
+            numRTN += f.numRTN;
+            numToLayer5B += f.numToLayer5B;
+            numACK += f.numACK;
+            numCorrupt += f.numCorruptA + f.numCorruptB;
+            cumuRTT += f.snder.rtt.getCumulativeRTT();
+            rttCount += f.snder.rtt.getRttCount();
+            cumuCOMM += f.snder.rtt.getCumulativeCOMM();
+            commCount += f.snder.rtt.getCommCount();
+            bitMapUpdates += f.snder.numBitMapUpdates();
+            if (f.firstSentTime != 0 && (firstSentTime == 0 || f.firstSentTime < firstSentTime)) {
+                firstSentTime = f.firstSentTime;
+            }
+            lastRcvdTime = Math.max(lastRcvdTime, f.lastRcvdTime);
+        }
         this.ratioLost = (double)(numRTN - numCorrupt) / (numOTN+numRTN+numACK);
         this.ratioCorrupt = (double)(numCorrupt) / ((numOTN + numRTN) + numACK - (numRTN - numCorrupt));
-        this.avgRTT = snder.rtt.getCumulativeRTT() / snder.rtt.getRttCount();
-        this.avgCOMM = snder.rtt.getCumulativeCOMM() / snder.rtt.getCommCount();
+        this.avgRTT = cumuRTT / rttCount;
+        this.avgCOMM = cumuCOMM / commCount;
         this.duration = lastRcvdTime - firstSentTime;
         this.throughput = (double)(numOTN + numRTN) / duration;
-        this.goodput = (double)snder.rtt.getCommCount() / duration;
+        this.goodput = (double)commCount / duration;
 
 
         // TO PRINT THE STATISTICS, FILL IN THE DETAILS BY PUTTING VARIBALE NAMES. DO NOT CHANGE THE FORMAT OF PRINTED OUTPUT
-        System.out.println("\n\n===============STATISTICS=======================");
-        System.out.println("Number of original packets transmitted by A: " + numOTN);
-        System.out.println("Number of retransmissions by A: " + numRTN);
-        System.out.println("Number of data packets delivered to layer 5 at B: " + numToLayer5B);
-        System.out.println("Number of ACK packets sent by B: " + numACK);
-        System.out.println("Number of corrupted packets: " + numCorrupt);
-        System.out.printf("Ratio of lost packets: %.2f \n", ratioLost);
-        System.out.printf("Ratio of corrupted packets: %.2f \n", ratioCorrupt);
-        System.out.printf("Average RTT: %.2f \n", avgRTT);
-        System.out.printf("Average communication time: %.2f \n", avgCOMM);
-        System.out.println("==================================================");
+        console.println("\n\n===============STATISTICS=======================");
+        console.println("Number of original packets transmitted by A: " + numOTN);
+        console.println("Number of retransmissions by A: " + numRTN);
+        console.println("Number of data packets delivered to layer 5 at B: " + numToLayer5B);
+        console.println("Number of ACK packets sent by B: " + numACK);
+        console.println("Number of corrupted packets: " + numCorrupt);
+        console.printf("Ratio of lost packets: %.2f \n", ratioLost);
+        console.printf("Ratio of corrupted packets: %.2f \n", ratioCorrupt);
+        console.printf("Average RTT: %.2f \n", avgRTT);
+        console.printf("Average communication time: %.2f \n", avgCOMM);
+        console.println("==================================================");
 
         // PRINT YOUR OWN STATISTIC HERE TO CHECK THE CORRECTNESS OF YOUR PROGRAM
-        System.out.println("\nEXTRA:");
+        console.println("\nEXTRA:");
         // EXAMPLE GIVEN BELOW
-        System.out.println("Cumulative valid RTT = " + snder.rtt.getCumulativeRTT());
-        System.out.println("RTT valid count = " + snder.rtt.getRttCount());
-        System.out.println("Cumulative communication time = " + snder.rtt.getCumulativeCOMM());
-        System.out.println("Communication valid count = " + snder.rtt.getCommCount());
-        System.out.println("Number of qualified ACKs and SACKs (BitMap flips count) = " + snder.numBitMapUpdates());
-        System.out.printf("Total transmission time: %.2f \n", duration);
-        System.out.printf("Throughput: %.4f \n", throughput);
-        System.out.printf("Goodput: %.4f \n", goodput);
+        console.println("Cumulative valid RTT = " + cumuRTT);
+        console.println("RTT valid count = " + rttCount);
+        console.println("Cumulative communication time = " + cumuCOMM);
+        console.println("Communication valid count = " + commCount);
+        console.println("Number of qualified ACKs and SACKs (BitMap flips count) = " + bitMapUpdates);
+        console.printf("Total transmission time: %.2f \n", duration);
+        console.printf("Throughput: %.4f \n", throughput);
+        console.printf("Goodput: %.4f \n", goodput);
+        console.printf("Goodput in bytes: %.4f \n", goodput * MAXDATASIZE);
+        if (flows.length > 1) {
+            console.println("\nPER FLOW:");
+            for (int i = 0; i < flows.length; i++) {
+                Flow f = flows[i];
+                console.printf("Flow %d: sent %d, retransmitted %d, delivered %d, ACKs %d, " +
+                                "corrupted %d, average RTT %.2f, goodput %.4f \n",
+                        i, f.numOTN, f.numRTN, f.numToLayer5B, f.numACK,
+                        f.numCorruptA + f.numCorruptB, f.avgRTT(), f.goodput());
+            }
+        }
         //System.out.println("Example statistic you want to check e.g. number of ACK packets received by A :" + "<YourVariableHere>");
     }
 
+    // Statistics of the finished run, valid after Simulation_done
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public double getGoodput() {
+        return goodput;
+    }
+
+    public double getAvgRTT() {
+        return avgRTT;
+    }
+
+    public double getAvgCOMM() {
+        return avgCOMM;
+    }
+
+    public int getRetransmissions() {
+        return numRTN;
+    }
+
+    // Statistics of one flow
+    public double getFlowGoodput(int flow) {
+        return flows[flow].goodput();
+    }
+
+    public double getFlowAvgRTT(int flow) {
+        return flows[flow].avgRTT();
+    }
+
+    public int getFlowRetransmissions(int flow) {
+        return flows[flow].numRTN;
+    }
+
+    // State of A or B, for engines that roll back events
+    protected Object saveState(int entity) {
+        Flow f = flows[flowOf(entity)];
+        HostState s = new HostState();
+        if (isSender(entity)) {
+            s.snder = new Sender(f.snder);
+            s.counts = new int[]{f.numOTN, f.numRTN, f.numCorruptA};
+            s.firstSentTime = f.firstSentTime;
+            s.lastRcvdTime = f.lastRcvdTime;
+        } else {
+            s.rcver = new Receiver(f.rcver);
+            s.counts = new int[]{f.numToLayer5B, f.numACK, f.numCorruptB};
+        }
+        return s;
+    }
+
+    protected void restoreState(int entity, Object state) {
+        Flow f = flows[flowOf(entity)];
+        HostState s = (HostState) state;
+        if (isSender(entity)) {
+            f.snder = s.snder;
+            f.numOTN = s.counts[0];
+            f.numRTN = s.counts[1];
+            f.numCorruptA = s.counts[2];
+            f.firstSentTime = s.firstSentTime;
+            f.lastRcvdTime = s.lastRcvdTime;
+        } else {
+            f.rcver = s.rcver;
+            f.numToLayer5B = s.counts[0];
+            f.numACK = s.counts[1];
+            f.numCorruptB = s.counts[2];
+        }
+    }
+
+    // Protocol state of every flow, for checkpoints
+    protected void writeState(ByteBuffer out) {
+        out.putInt(WindowSize).putDouble(RxmtInterval).putInt(LimitSeqNo);
+        out.putInt(flows.length);
+        for (Flow f : flows) {
+            f.snder.writeTo(out);
+            f.rcver.writeTo(out);
+            out.putInt(f.numOTN).putInt(f.numRTN).putInt(f.numToLayer5B).putInt(f.numACK)
+                    .putInt(f.numCorruptA).putInt(f.numCorruptB);
+            out.putDouble(f.firstSentTime).putDouble(f.lastRcvdTime);
+        }
+    }
+
+    protected void readState(ByteBuffer in) {
+        if (in.getInt() != WindowSize || in.getDouble() != RxmtInterval || in.getInt() != LimitSeqNo) {
+            throw new IllegalStateException("The checkpoint was taken with another window size or timeout");
+        }
+        flows = new Flow[in.getInt()];
+        for (int i = 0; i < flows.length; i++) {
+            Flow f = new Flow();
+            f.snder = new Sender(in, getArena());
+            f.rcver = new Receiver(in, getArena());
+            f.numOTN = in.getInt();
+            f.numRTN = in.getInt();
+            f.numToLayer5B = in.getInt();
+            f.numACK = in.getInt();
+            f.numCorruptA = in.getInt();
+            f.numCorruptB = in.getInt();
+            f.firstSentTime = in.getDouble();
+            f.lastRcvdTime = in.getDouble();
+            flows[i] = f;
+        }
+    }
+
+    /*
+     * Sender and receiver of one flow with its statistics. Those at A and B
+     * are kept apart, the two sides may run on different threads.
+     */
+    private static class Flow {
+        private Sender snder;
+        private Receiver rcver;
+        private int numOTN;
+        private int numRTN;
+        private int numToLayer5B;
+        private int numACK;
+        private int numCorruptA;
+        private int numCorruptB;
+        private double firstSentTime;
+        private double lastRcvdTime;
+
+        double avgRTT() {
+            return snder.rtt.getCumulativeRTT() / snder.rtt.getRttCount();
+        }
+
+        double goodput() {
+            return (double) snder.rtt.getCommCount() / (lastRcvdTime - firstSentTime);
+        }
+    }
+
+    private static class HostState {
+        private Sender snder;
+        private Receiver rcver;
+        private int[] counts;
+        private double firstSentTime;
+        private double lastRcvdTime;
+    }
+
 
 
 }
@@ -0,0 +1,644 @@
+/***************************************************************************
+ * ClassName: TimeWarpEngine
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Optimistic (Time Warp) version of NetworkSimulator.runSimulator
+ * (-Dengine=timewarp). Entity A and entity B each run on their own thread
+ * and process their events as far ahead as they like, up to
+ * -Dtimewarp.lag time units past GVT (default 20). Before every event a
+ * host saves the student's state of its entity (NetworkSimulator.saveState)
+ * together with its own: clock, running timer, random streams, link tail
+ * and the state of the link's channel, link and corruption models. A
+ * packet sent to the other host goes straight into its inbox.
+ *
+ * When a packet arrives that is earlier than events the receiver already
+ * ran (a straggler), the receiver rolls back: it restores the state saved
+ * before the earliest of them, takes back the timers it scheduled or
+ * cancelled, sends an anti-message for every packet it sent, and puts the
+ * events back into its queue. An anti-message deletes its packet from the
+ * queue, or rolls the receiver back first if it already ran it.
+ *
+ * Every so often both hosts stop at a barrier to compute GVT, the smallest
+ * time either of them could still be rolled back to. Events before GVT
+ * are final: what they delivered to layer 5 and printed on the console is
+ * written out in event order, and their saved states are dropped. Both the
+ * output and the console therefore come out as if the events had run one
+ * at a time.
+ *
+ * Rollback cannot undo draws from a random stream that both hosts share,
+ * so here each entity draws for its own link (NetworkSimulator.linkRandom).
+ * Ties in time are broken by a fixed order on who scheduled the event.
+ * A run is reproducible for a seed however the threads are scheduled, but
+ * it is not the same run as the sequential engine with that seed.
+ ****************************************************************************/
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+
+public class TimeWarpEngine implements ParallelEngine {
+    // A host asks for GVT once it holds this many uncommitted events
+    private static final int FOSSIL_LIMIT = 512;
+
+    /*
+     * Events are ordered by time, then by how many ancestors at that same
+     * time they have, so that an event always comes after the one that
+     * scheduled it, then by who scheduled them and in what order
+     */
+    private static final Comparator<Scheduled> ORDER = (x, y) -> {
+        int c = Double.compare(x.time, y.time);
+        if (c == 0) c = Integer.compare(x.generation, y.generation);
+        if (c == 0) c = Integer.compare(x.creator, y.creator);
+        if (c == 0) c = Long.compare(x.seq, y.seq);
+        return c;
+    };
+
+    private static final int SCHEDULED = 0;
+    private static final int CANCELLED = 1;
+    private static final int SENT = 2;
+
+    private final NetworkSimulator sim;
+    private final Host[] hosts;
+    private final ThreadLocal<Host> host;   // host whose event the calling thread runs
+    private final CyclicBarrier barrier;
+    private final double lag;
+    private PrintStream console;            // the real console, while sim.console is captured
+    private double stopTime;
+
+    private volatile boolean gvtRequested;
+    // written by the barrier action, read by both hosts after the barrier
+    private double gvt;
+    private boolean finished;
+    private Throwable failure;
+
+    private long rolledBack;
+    private long rounds;
+
+    public TimeWarpEngine(NetworkSimulator sim) {
+        this.sim = sim;
+        this.hosts = new Host[]{new Host(NetworkSimulator.A, sim.linkRandom(NetworkSimulator.A)),
+                new Host(NetworkSimulator.B, sim.linkRandom(NetworkSimulator.B))};
+        this.host = new ThreadLocal<>();
+        this.barrier = new CyclicBarrier(2, this::endRound);
+        this.lag = Double.parseDouble(System.getProperty("timewarp.lag", "20"));
+        if (!(lag > 0)) {
+            throw new IllegalArgumentException("timewarp.lag must be > 0");
+        }
+    }
+
+    public double run() {
+        stopTime = sim.stopTime();
+        console = sim.console;
+        sim.console = new PrintStream(new CapturedConsole(), false);
+        try {
+            // everything scheduled during initialization comes before the rest
+            Dispatch init = new Dispatch(null, null);
+            for (Host h : hosts) {
+                h.current = init;
+            }
+            host.set(hosts[NetworkSimulator.A]);
+            sim.aInit();
+            host.set(hosts[NetworkSimulator.B]);
+            sim.bInit();
+            host.set(hosts[NetworkSimulator.A]);
+            generateNextArrival(hosts[NetworkSimulator.A]);
+            host.remove();
+            sim.console.flush();
+            output(init);
+            for (Host h : hosts) {
+                receive(h);
+            }
+
+            Thread[] threads = new Thread[hosts.length];
+            for (int i = 0; i < hosts.length; i++) {
+                Host h = hosts[i];
+                threads[i] = new Thread(() -> work(h), "host-" + (char) ('A' + i));
+                threads[i].start();
+            }
+            for (Thread t : threads) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the hosts", e);
+                }
+            }
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            if (failure instanceof Error) throw (Error) failure;
+            if (failure != null) throw new IllegalStateException(failure);
+
+            double time = runSerially();
+            console.println("Time Warp: " + rolledBack + " events rolled back, " +
+                    rounds + " GVT rounds");
+            return time;
+        } finally {
+            sim.console = console;
+        }
+    }
+
+    private void work(Host h) {
+        host.set(h);
+        try {
+            while (!finished) {
+                receive(h);
+                if (gvtRequested || !runNext(h)) {
+                    gvtRequested = true;
+                    barrier.await();
+                }
+            }
+        } catch (BrokenBarrierException e) {
+            // the other host failed, its failure is reported
+        } catch (Throwable t) {
+            synchronized (this) {
+                if (failure == null) failure = t;
+            }
+            barrier.reset();
+        }
+    }
+
+    /*
+     * Run the next event of h if it is within reach, false if h has to
+     * wait for GVT to move on
+     */
+    private boolean runNext(Host h) {
+        Scheduled next = h.queue.peek();
+        if (next == null || next.time >= stopTime || next.time >= gvt + lag) {
+            return false;
+        }
+        h.queue.poll();
+        Dispatch d = new Dispatch(next, save(h));
+        h.done.addLast(d);
+        if (!dispatch(h, d)) {
+            throw new IllegalStateException("Simulation ended at " + h.time +
+                    " before its stop time " + stopTime);
+        }
+        sim.console.flush();
+        if (h.done.size() > FOSSIL_LIMIT) {
+            gvtRequested = true;
+        }
+        return true;
+    }
+
+    /*
+     * Take in what the other host sent, rolling back where needed
+     */
+    private void receive(Host h) {
+        Envelope m;
+        while ((m = h.inbox.poll()) != null) {
+            if (m.anti) {
+                if (!h.queue.remove(m.scheduled)) {
+                    // already ran it, the rollback puts it back in the queue
+                    rollback(h, m.scheduled);
+                    h.queue.remove(m.scheduled);
+                }
+            } else {
+                if (!h.done.isEmpty() && ORDER.compare(m.scheduled, h.done.peekLast().scheduled) < 0) {
+                    rollback(h, m.scheduled);
+                }
+                h.queue.add(m.scheduled);
+            }
+        }
+    }
+
+    /*
+     * Undo every event of h that comes at or after to, latest first
+     */
+    private void rollback(Host h, Scheduled to) {
+        while (!h.done.isEmpty() && ORDER.compare(h.done.peekLast().scheduled, to) >= 0) {
+            Dispatch d = h.done.removeLast();
+            restore(h, d.before);
+            for (int i = d.effects.size() - 1; i >= 0; i--) {
+                Scheduled s = d.effects.get(i);
+                switch (d.kinds.get(i)) {
+                    case SCHEDULED:
+                        h.queue.remove(s);
+                        break;
+                    case CANCELLED:
+                        h.queue.add(s);
+                        break;
+                    case SENT:
+                        hosts[s.event.getEntity()].inbox.add(new Envelope(s, true));
+                        break;
+                }
+            }
+            h.queue.add(d.scheduled);
+            ++h.rolledBack;
+        }
+    }
+
+    /*
+     * Barrier action: settle all messages in flight, find GVT and commit
+     * everything before it
+     */
+    private void endRound() {
+        boolean pending = true;
+        while (pending) {
+            pending = false;
+            for (Host h : hosts) {
+                if (!h.inbox.isEmpty()) {
+                    receive(h);
+                    pending = true;
+                }
+            }
+        }
+
+        double t = Double.POSITIVE_INFINITY;
+        for (Host h : hosts) {
+            if (!h.queue.isEmpty()) t = Math.min(t, h.queue.peek().time);
+        }
+        gvt = t;
+
+        // commit in event order across both hosts
+        while (true) {
+            Host first = null;
+            for (Host h : hosts) {
+                Dispatch d = h.done.peekFirst();
+                if (d != null && d.scheduled.time < gvt && (first == null ||
+                        ORDER.compare(d.scheduled, first.done.peekFirst().scheduled) < 0)) {
+                    first = h;
+                }
+            }
+            if (first == null) {
+                break;
+            }
+            output(first.done.removeFirst());
+        }
+
+        ++rounds;
+        gvtRequested = false;
+        finished = gvt >= stopTime;
+        if (finished) {
+            for (Host h : hosts) {
+                rolledBack += h.rolledBack;
+            }
+        }
+    }
+
+    /*
+     * Run what is left, one event at a time in order, until the stop event
+     */
+    private double runSerially() {
+        double time = stopTime;
+        while (true) {
+            Host h = null;
+            for (Host candidate : hosts) {
+                Scheduled s = candidate.queue.peek();
+                if (s != null && (h == null || ORDER.compare(s, h.queue.peek()) < 0)) {
+                    h = candidate;
+                }
+            }
+            if (h == null) {
+                break;
+            }
+            Dispatch d = new Dispatch(h.queue.poll(), null);
+            host.set(h);
+            boolean more = dispatch(h, d);
+            sim.console.flush();
+            time = h.time;
+            output(d);
+            for (Host other : hosts) {
+                receive(other);
+            }
+            if (!more) {
+                break;
+            }
+        }
+        host.remove();
+        return time;
+    }
+
+    /*
+     * Hand one event to the student, false if it ends the simulation
+     */
+    private boolean dispatch(Host h, Dispatch d) {
+        Event next = d.scheduled.event;
+        h.current = d;
+        h.time = d.scheduled.time;
+
+        if (sim.traceLevel >= 2) {
+            sim.console.println();
+            sim.console.print("EVENT time: " + next.getTime());
+            sim.console.print("  type: " + next.getType());
+            sim.console.println("  entity: " + next.getEntity());
+        }
+
+        switch (next.getType()) {
+            case NetworkSimulator.TIMERINTERRUPT:
+                if (h.timer == d.scheduled) h.timer = null;
+                if (next.getEntity() == NetworkSimulator.A) {
+                    sim.aTimerInterrupt();
+                } else {
+                    sim.console.println("INTERNAL PANIC: Timeout for invalid entity");
+                }
+                break;
+
+            case NetworkSimulator.FROMLAYER3:
+                Packet packet = next.getPacket();
+                if (next.getEntity() == NetworkSimulator.A) {
+                    sim.aInput(packet);
+                } else {
+                    sim.bInput(packet);
+                }
+                break;
+
+            case NetworkSimulator.FROMLAYER5:
+                generateNextArrival(h);
+                byte[] data = sim.nextMessageData();
+                if (data == null) {
+                    return false;
+                }
+                sim.aOutput(new Message(data));
+                break;
+
+            default:
+                sim.console.println("INTERNAL PANIC: Unknown event type");
+        }
+        return true;
+    }
+
+    // Write out what a committed event delivered and printed
+    private void output(Dispatch d) {
+        for (byte[] data : d.delivered) {
+            sim.write(data);
+        }
+        if (d.printed != null) {
+            console.write(d.printed.toByteArray(), 0, d.printed.size());
+        }
+    }
+
+    private State save(Host h) {
+        State s = new State();
+        s.student = sim.saveState(h.entity);
+        s.time = h.time;
+        s.timer = h.timer;
+        s.seq = h.seq;
+        s.random = h.random.copy();
+        s.channel = sim.channel(link(h)).copy();
+        s.link = sim.link(link(h)).copy();
+        s.corruption = sim.corruption(link(h)).copy();
+        s.lastArrival = h.lastArrival;
+        s.generated = sim.messagesGenerated();
+        return s;
+    }
+
+    private void restore(Host h, State s) {
+        sim.restoreState(h.entity, s.student);
+        h.time = s.time;
+        h.timer = s.timer;
+        h.seq = s.seq;
+        h.random = s.random;
+        sim.setChannel(link(h), s.channel);
+        sim.setLink(link(h), s.link);
+        sim.setCorruption(link(h), s.corruption);
+        h.lastArrival = s.lastArrival;
+        if (h.entity == NetworkSimulator.A) {
+            sim.setMessagesGenerated(s.generated);
+        }
+    }
+
+    // Entity at the other end of the outgoing link of h
+    private static int link(Host h) {
+        return h.entity == NetworkSimulator.A ? NetworkSimulator.B : NetworkSimulator.A;
+    }
+
+    private Scheduled newScheduled(Host h, Event e) {
+        Scheduled parent = h.current.scheduled;
+        int generation = parent != null && e.getTime() == parent.time ? parent.generation + 1 : 0;
+        return new Scheduled(e, generation, h.entity, h.seq++);
+    }
+
+    private Scheduled add(Host h, Event e) {
+        Scheduled s = newScheduled(h, e);
+        h.queue.add(s);
+        h.current.effect(SCHEDULED, s);
+        return s;
+    }
+
+    private void cancel(Host h, Scheduled s) {
+        h.current.effect(CANCELLED, s);
+    }
+
+    private void generateNextArrival(Host h) {
+        double x = sim.nextArrivalGap(h.random);
+        add(h, new Event(h.time + x, NetworkSimulator.FROMLAYER5, NetworkSimulator.A));
+    }
+
+    // NetworkSimulator routines while this engine runs
+
+    public Event startTimer(int entity, double increment) {
+        Host h = host.get();
+        if (sim.traceLevel > 2) {
+            sim.console.println("startTimer: starting timer at " + h.time);
+        }
+        if (entity != h.entity) {
+            sim.console.println("startTimer: Warning: invalid entity");
+            return null;
+        }
+        if (h.timer != null) {
+            sim.console.println("startTimer: Warning: Attempting to start a " +
+                    "timer that is already running");
+            return h.timer.event;
+        }
+        h.timer = add(h, new Event(h.time + increment, NetworkSimulator.TIMERINTERRUPT, entity));
+        return h.timer.event;
+    }
+
+    public void stopTimer(int entity) {
+        Host h = host.get();
+        if (sim.traceLevel > 2) {
+            sim.console.println("stopTimer: stopping timer at " + h.time);
+        }
+        if (entity != h.entity) {
+            sim.console.println("stopTimer: Warning: invalid entity");
+            return;
+        }
+        stopTimer(h.timer == null ? null : h.timer.event);
+    }
+
+    public void stopTimer(Event timer) {
+        Host h = host.get();
+        if (timer == null || h.timer == null || h.timer.event != timer || !h.queue.remove(h.timer)) {
+            sim.console.println("stopTimer: Warning: Unable to cancel your timer");
+            return;
+        }
+        cancel(h, h.timer);
+        h.timer = null;
+    }
+
+    /*
+     * A new timer event rather than moving the old one, which may have to
+     * come back as it was on rollback
+     */
+    public Event restartTimer(int entity, double increment) {
+        Host h = host.get();
+        if (sim.traceLevel > 2) {
+            sim.console.println("restartTimer: restarting timer at " + h.time);
+        }
+        if (entity != h.entity) {
+            sim.console.println("restartTimer: Warning: invalid entity");
+            return null;
+        }
+        if (h.timer != null && h.queue.remove(h.timer)) {
+            cancel(h, h.timer);
+        }
+        h.timer = add(h, new Event(h.time + increment, NetworkSimulator.TIMERINTERRUPT, entity));
+        return h.timer.event;
+    }
+
+    public void toLayer3(int callingEntity, Packet p) {
+        Host h = host.get();
+        if (sim.traceLevel > 2) {
+            sim.console.println("toLayer3: " + p);
+        }
+        if (callingEntity != h.entity) {
+            sim.console.println("toLayer3: Warning: invalid packet sender");
+            return;
+        }
+        int destination = link(h);
+        double last = h.lastArrival >= h.time ? h.lastArrival : 0;
+        Event arrival = sim.transmit(destination, p, h.time, last, h.random, false);
+        if (arrival == null) {
+            return;
+        }
+        h.lastArrival = arrival.getTime();
+        Scheduled s = newScheduled(h, arrival);
+        h.current.effect(SENT, s);
+        hosts[destination].inbox.add(new Envelope(s, false));
+    }
+
+    public void toLayer5(byte[] dataSent) {
+        host.get().current.delivered.add(dataSent);
+    }
+
+    public double getTime() {
+        return host.get().time;
+    }
+
+    public void printEventList() {
+        Host h = host.get();
+        List<Scheduled> sorted = new ArrayList<>(h.queue);
+        sorted.sort(ORDER);
+        List<Event> events = new ArrayList<>(sorted.size());
+        for (Scheduled s : sorted) events.add(s.event);
+        sim.console.println(events.toString());
+    }
+
+    /*
+     * Console of the simulator while the engine runs: each host's output
+     * goes with the event it is running, until that event is committed
+     */
+    private class CapturedConsole extends OutputStream {
+        public void write(int b) {
+            host.get().current.console().write(b);
+        }
+
+        public void write(byte[] b, int off, int len) {
+            host.get().current.console().write(b, off, len);
+        }
+    }
+
+    /*
+     * One entity with its own queue, run by its own thread
+     */
+    private static class Host {
+        private final int entity;
+        private final PriorityQueue<Scheduled> queue;
+        private final ConcurrentLinkedQueue<Envelope> inbox;
+        private final ArrayDeque<Dispatch> done;    // events run but not committed yet
+        private Dispatch current;                   // event being run
+        private long rolledBack;
+
+        // state saved with every event
+        private double time;
+        private Scheduled timer;
+        private long seq;                   // events scheduled by this host so far
+        private RandomStreams random;           // streams for layer 5 arrivals and the outgoing link
+        private double lastArrival;         // latest arrival put on the outgoing link
+
+        Host(int entity, RandomStreams random) {
+            this.entity = entity;
+            this.queue = new PriorityQueue<>(ORDER);
+            this.inbox = new ConcurrentLinkedQueue<>();
+            this.done = new ArrayDeque<>();
+            this.random = random;
+        }
+    }
+
+    private static class State {
+        private Object student;
+        private double time;
+        private Scheduled timer;
+        private long seq;
+        private RandomStreams random;
+        private ChannelModel channel;
+        private LinkModel link;
+        private CorruptionModel corruption;
+        private double lastArrival;
+        private int generated;
+    }
+
+    private static class Scheduled {
+        private final Event event;
+        private final double time;
+        private final int generation;
+        private final int creator;
+        private final long seq;
+
+        Scheduled(Event event, int generation, int creator, long seq) {
+            this.event = event;
+            this.time = event.getTime();
+            this.generation = generation;
+            this.creator = creator;
+            this.seq = seq;
+        }
+    }
+
+    private static class Envelope {
+        private final Scheduled scheduled;
+        private final boolean anti;
+
+        Envelope(Scheduled scheduled, boolean anti) {
+            this.scheduled = scheduled;
+            this.anti = anti;
+        }
+    }
+
+    /*
+     * An event that has been run, with everything needed to undo it and
+     * what it produced until it is committed
+     */
+    private static class Dispatch {
+        private final Scheduled scheduled;
+        private final State before;
+        private final List<Scheduled> effects;
+        private final List<Integer> kinds;
+        private final List<byte[]> delivered;
+        private ByteArrayOutputStream printed;
+
+        Dispatch(Scheduled scheduled, State before) {
+            this.scheduled = scheduled;
+            this.before = before;
+            this.effects = new ArrayList<>(4);
+            this.kinds = new ArrayList<>(4);
+            this.delivered = new ArrayList<>(2);
+        }
+
+        void effect(int kind, Scheduled s) {
+            effects.add(s);
+            kinds.add(kind);
+        }
+
+        ByteArrayOutputStream console() {
+            if (printed == null) printed = new ByteArrayOutputStream(256);
+            return printed;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/***************************************************************************
+ * ClassName: TraceLink
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: Link that replays a recorded trace of loss and one-way
+ * delay (-Dlink=trace:file, or trace:file,stop). The trace file is
+ *
+ *     int magic "RTPT", int version,
+ *     one double per packet: its one-way delay, or -1 if it was lost
+ *
+ * and is read through memory-mapped windows of 64 MB, so a trace of any
+ * size streams from disk instead of the heap. The n-th packet put on the
+ * link gets the n-th record. At the end the trace starts over, or with
+ * ",stop" the link goes down and loses everything after it.
+ *
+ * Packets still arrive in the order they were sent: one that the trace
+ * delays less than the packet before it arrives right after that one.
+ * The channel model loses packets on top of the trace, so enter a loss
+ * probability of 0 to have only the losses of the trace.
+ *
+ * java TraceLink text binary converts a text trace with the delay, or
+ * "lost", of one packet per line into a trace file.
+ ****************************************************************************/
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class TraceLink implements LinkModel {
+    static final int MAGIC = 0x52545054;    // "RTPT"
+    static final int VERSION = 1;
+    private static final int HEADER = 8;
+    private static final int WINDOW = 1 << 23;     // records mapped at a time
+
+    private final Path path;
+    private final long records;
+    private final boolean loop;
+
+    private MappedByteBuffer window;    // records from windowStart on
+    private long windowStart;
+    private long next;                  // packets put on the link so far
+
+    // statistics
+    private long lost;
+    private double delays;              // sum over the packets not lost
+
+    public TraceLink(Path path, boolean loop) {
+        this.path = path;
+        this.loop = loop;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER || header.getInt() != MAGIC) {
+                throw new IllegalStateException(path + " is not a link trace");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IllegalStateException(path + " has trace version " + version +
+                        ", expected " + VERSION);
+            }
+            this.records = (channel.size() - HEADER) / 8;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read link trace " + path, e);
+        }
+        if (records == 0) {
+            throw new IllegalStateException(path + " has no packets");
+        }
+        this.windowStart = -1;
+    }
+
+    private TraceLink(TraceLink l) {
+        this.path = l.path;
+        this.records = l.records;
+        this.loop = l.loop;
+        this.window = l.window;
+        this.windowStart = l.windowStart;
+        this.next = l.next;
+        this.lost = l.lost;
+        this.delays = l.delays;
+    }
+
+    /**
+     * Parse the "file[,stop]" after "trace:"
+     */
+    public static TraceLink parse(String args) {
+        if (args == null || args.isEmpty()) {
+            throw new IllegalArgumentException("Expected trace:file or trace:file,stop");
+        }
+        boolean stop = args.endsWith(",stop");
+        String file = stop ? args.substring(0, args.length() - 5) :
+                args.endsWith(",loop") ? args.substring(0, args.length() - 5) : args;
+        return new TraceLink(Paths.get(file), !stop);
+    }
+
+    public double arrival(Packet p, double now, double lastArrival, RandomStreams r) {
+        if (!loop && next >= records) {
+            next++;
+            lost++;
+            return -1;
+        }
+        double delay = record(next++ % records);
+        if (delay < 0 || Double.isNaN(delay)) {
+            lost++;
+            return -1;
+        }
+        delays += delay;
+        return Math.max(now + delay, lastArrival);
+    }
+
+    private double record(long index) {
+        if (index < windowStart || index >= windowStart + WINDOW || windowStart < 0) {
+            map(index - index % WINDOW);
+        }
+        return window.getDouble((int) (index - windowStart) * 8);
+    }
+
+    private void map(long start) {
+        long length = Math.min(WINDOW, records - start) * 8;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + start * 8, length);
+            windowStart = start;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read link trace " + path, e);
+        }
+    }
+
+    // Delays are only known record by record, so no lookahead
+    public double minDelay() {
+        return 0;
+    }
+
+    // Shares the mapped window, which is only read
+    public LinkModel copy() {
+        return new TraceLink(this);
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.put(TRACE);
+        out.putLong(records).putLong(next).putLong(lost).putDouble(delays);
+    }
+
+    public void readFrom(ByteBuffer in) {
+        if (in.get() != TRACE) {
+            throw new IllegalStateException("Saved with another link model than trace");
+        }
+        if (in.getLong() != records) {
+            throw new IllegalStateException("Saved with another trace than " + path);
+        }
+        next = in.getLong();
+        lost = in.getLong();
+        delays = in.getDouble();
+    }
+
+    public String report(double end) {
+        long delivered = next - lost;
+        String s = String.format("trace %s of %d packets: %d packets, %d lost (%.2f%%), " +
+                        "average delay %.4f",
+                path, records, next, lost, next == 0 ? 0.0 : 100.0 * lost / next,
+                delivered == 0 ? 0.0 : delays / delivered);
+        if (next > records) {
+            s += loop ? String.format(", replayed %.2f times", (double) next / records) :
+                    String.format(", down after packet %d", records);
+        }
+        return s;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java TraceLink text binary");
+            return;
+        }
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(args[0]));
+             FileChannel out = FileChannel.open(Paths.get(args[1]), StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(MAGIC).putInt(VERSION);
+            long packets = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (!buffer.hasRemaining()) {
+                    write(out, buffer);
+                }
+                buffer.putDouble(line.equalsIgnoreCase("lost") ? -1 : Double.parseDouble(line));
+                packets++;
+            }
+            write(out, buffer);
+            System.out.println(packets + " packets written to " + args[1]);
+        }
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
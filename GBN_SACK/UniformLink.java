@@ -0,0 +1,46 @@
+/***************************************************************************
+ * ClassName: UniformLink
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: The link the simulator always had. A packet arrives 1 to
+ * 10 time units, uniformly, after the later of now and the last arrival
+ * still scheduled, so the link cannot reorder. It has no bandwidth, any
+ * number of packets can be on it at once.
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+
+public class UniformLink implements LinkModel {
+    public double arrival(Packet p, double now, double lastArrival, RandomStreams r) {
+        double arrivalTime = lastArrival;
+
+        if (arrivalTime <= 0.0) {
+            arrivalTime = now;
+        }
+
+        return arrivalTime + 1 + (r.nextDouble(RandomStreams.DELAY) * 9);
+    }
+
+    public double minDelay() {
+        return 1.0;
+    }
+
+    // No state to copy
+    public LinkModel copy() {
+        return this;
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.put(UNIFORM);
+    }
+
+    public void readFrom(ByteBuffer in) {
+        if (in.get() != UNIFORM) {
+            throw new IllegalStateException("Saved with another link model than uniform");
+        }
+    }
+
+    public String report(double end) {
+        return null;
+    }
+}
@@ -0,0 +1,125 @@
+/***************************************************************************
+ * ClassName: XoshiroRandom
+ * Date: 10/18/2026
+ * Version: 1.0
+ * Description: RandomStreams on xoshiro256** (Blackman and Vigna). Each
+ * stream has its own 256-bit state. The seed is expanded with SplitMix64
+ * into the state of stream 0, and every further stream starts 2^128
+ * numbers after the previous one (jump), so the streams never overlap.
+ * split jumps 2^192 numbers ahead (long jump), which leaves room for 2^64
+ * generators each with their 2^64 streams. Numbers have 53 random bits,
+ * which makes probabilities down to about 1e-16 meaningful.
+ ****************************************************************************/
+
+import java.nio.ByteBuffer;
+
+public class XoshiroRandom implements RandomStreams {
+    private static final long[] JUMP = {
+            0x180ec6d33cfd0abaL, 0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL, 0x39abdc4529b1661cL};
+    private static final long[] LONG_JUMP = {
+            0x76e15d3efefdcbbfL, 0xc5004e441c522fb3L, 0x77710069854ee241L, 0x39109bb02acbe635L};
+
+    private final long[] s;     // 4 words of state per stream
+
+    public XoshiroRandom(long seed) {
+        this.s = new long[4 * STREAMS];
+        long x = seed;
+        for (int i = 0; i < 4; i++) {
+            x += 0x9e3779b97f4a7c15L;
+            s[i] = splitMix(x);
+        }
+        for (int k = 1; k < STREAMS; k++) {
+            System.arraycopy(s, 4 * (k - 1), s, 4 * k, 4);
+            jump(k, JUMP);
+        }
+    }
+
+    private XoshiroRandom(long[] state) {
+        this.s = state;
+    }
+
+    XoshiroRandom(ByteBuffer in) {
+        this.s = new long[4 * STREAMS];
+        for (int i = 0; i < s.length; i++) {
+            s[i] = in.getLong();
+        }
+    }
+
+    private static long splitMix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return the next 64 random bits of stream
+     */
+    public long nextLong(int stream) {
+        int o = 4 * stream;
+        long s0 = s[o], s1 = s[o + 1], s2 = s[o + 2], s3 = s[o + 3];
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        s[o] = s0;
+        s[o + 1] = s1;
+        s[o + 2] = s2;
+        s[o + 3] = s3;
+        return result;
+    }
+
+    public double nextDouble(int stream) {
+        return (nextLong(stream) >>> 11) * 0x1.0p-53;
+    }
+
+    public RandomStreams copy() {
+        return new XoshiroRandom(s.clone());
+    }
+
+    public RandomStreams split() {
+        XoshiroRandom other = new XoshiroRandom(s.clone());
+        other.longJump();
+        return other;
+    }
+
+    /**
+     * Move every stream 2^192 numbers ahead
+     */
+    public void longJump() {
+        for (int k = 0; k < STREAMS; k++) {
+            jump(k, LONG_JUMP);
+        }
+    }
+
+    // Advance stream k by the polynomial in table
+    private void jump(int k, long[] table) {
+        int o = 4 * k;
+        long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        for (long word : table) {
+            for (int b = 0; b < 64; b++) {
+                if ((word & (1L << b)) != 0) {
+                    s0 ^= s[o];
+                    s1 ^= s[o + 1];
+                    s2 ^= s[o + 2];
+                    s3 ^= s[o + 3];
+                }
+                nextLong(k);
+            }
+        }
+        s[o] = s0;
+        s[o + 1] = s1;
+        s[o + 2] = s2;
+        s[o + 3] = s3;
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.put(XOSHIRO);
+        for (long word : s) {
+            out.putLong(word);
+        }
+    }
+}
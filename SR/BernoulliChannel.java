@@ -0,0 +1,16 @@
+// Independent loss: each packet is lost with the same probability, one
+// draw per packet as the simulator always did.
+public class BernoulliChannel implements ChannelModel
+{
+    private double loss;
+
+    public BernoulliChannel(double loss)
+    {
+        this.loss = loss;
+    }
+
+    public boolean lost(OSIRandom rand)
+    {
+        return rand.nextDouble(1) < loss;
+    }
+}
@@ -0,0 +1,13 @@
+// Decides which packets a link loses.  Each direction has a model of its
+// own, chosen at startup with -Dchannel (both directions), -Dchannel.ab or
+// -Dchannel.ba, as one of
+//
+//     bernoulli            every packet is lost with the loss probability
+//                          entered at startup (the default)
+//     gilbert[:p,r[,k,h]]  GilbertElliottChannel, bursts of loss
+public interface ChannelModel
+{
+    // Whether the next packet put on the link is lost.  Draws from
+    // stream 1 of rand only.
+    boolean lost(OSIRandom rand);
+}
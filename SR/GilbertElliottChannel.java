@@ -0,0 +1,61 @@
+// Two-state Gilbert-Elliott channel.  Before each packet the link goes
+// from good to bad with probability p and from bad to good with
+// probability r, then the packet is lost with probability k when good and
+// h when bad.  "gilbert" on its own has bursts of 10 packets (r = 0.1,
+// k = 0, h = 1) and an average loss of the loss probability entered at
+// startup, the same as the GBN_SACK simulator.
+public class GilbertElliottChannel implements ChannelModel
+{
+    private double p;       // good to bad
+    private double r;       // bad to good
+    private double k;       // loss when good
+    private double h;       // loss when bad
+    private boolean bad;
+
+    public GilbertElliottChannel(double p, double r, double k, double h)
+    {
+        if (p < 0 || p > 1 || r < 0 || r > 1 || k < 0 || k > 1 || h < 0 || h > 1)
+        {
+            throw new IllegalArgumentException("Gilbert-Elliott probabilities must be " +
+                    "in [0, 1]: p " + p + ", r " + r + ", k " + k + ", h " + h);
+        }
+        this.p = p;
+        this.r = r;
+        this.k = k;
+        this.h = h;
+    }
+
+    // Bursts of 10 packets with an average loss of loss
+    public GilbertElliottChannel(double loss)
+    {
+        this(Math.min(1, 0.1 * loss / (1 - loss)), 0.1, 0, 1);
+    }
+
+    // Parse the "p,r[,k,h]" after "gilbert:", null for the defaults
+    public static GilbertElliottChannel parse(String args, double loss)
+    {
+        if (args == null || args.isEmpty())
+        {
+            return new GilbertElliottChannel(loss);
+        }
+        String[] a = args.split(",");
+        if (a.length != 2 && a.length != 4)
+        {
+            throw new IllegalArgumentException("Expected gilbert:p,r or gilbert:p,r,k,h " +
+                    "but got gilbert:" + args);
+        }
+        double[] v = new double[]{0, 0, 0, 1};
+        for (int i = 0; i < a.length; i++)
+        {
+            v[i] = Double.parseDouble(a[i].trim());
+        }
+        return new GilbertElliottChannel(v[0], v[1], v[2], v[3]);
+    }
+
+    public boolean lost(OSIRandom rand)
+    {
+        double x = rand.nextDouble(1);
+        bad = bad ? x >= r : x < p;
+        return rand.nextDouble(1) < (bad ? h : k);
+    }
+}
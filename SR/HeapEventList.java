@@ -0,0 +1,192 @@
+import java.util.Arrays;
+
+// Binary min-heap EventList keyed on event time.  Events with the same
+// time come out in the order they were added, which is the order
+// EventListImpl picks them from its vector, so a given seed produces the
+// same run with either implementation.
+public class HeapEventList implements EventList
+{
+    private Event[] heap;
+    private long[] order;       // insertion stamp of heap[i], breaks time ties FIFO
+    private int size;
+    private long nextOrder;
+
+    public HeapEventList()
+    {
+        this(64);
+    }
+
+    public HeapEventList(int capacity)
+    {
+        if (capacity < 1)
+        {
+            capacity = 1;
+        }
+        heap = new Event[capacity];
+        order = new long[capacity];
+        size = 0;
+        nextOrder = 0;
+    }
+
+    public boolean add(Event e)
+    {
+        if (size == heap.length)
+        {
+            grow();
+        }
+        heap[size] = e;
+        order[size] = nextOrder++;
+        siftUp(size);
+        size++;
+        return true;
+    }
+
+    public Event removeNext()
+    {
+        if (size == 0)
+        {
+            return null;
+        }
+        return removeAt(0);
+    }
+
+    public String toString()
+    {
+        Event[] sorted = new Event[size];
+        HeapEventList copy = new HeapEventList(size);
+        System.arraycopy(heap, 0, copy.heap, 0, size);
+        System.arraycopy(order, 0, copy.order, 0, size);
+        copy.size = size;
+        for (int i = 0; i < sorted.length; i++)
+        {
+            sorted[i] = copy.removeNext();
+        }
+        return Arrays.toString(sorted);
+    }
+
+    public Event removeTimer(int entity)
+    {
+        int timerIndex = -1;
+
+        for (int i = 0; i < size; i++)
+        {
+            if ((heap[i].getType() == NetworkSimulator.TIMERINTERRUPT) &&
+                (heap[i].getEntity() == entity) &&
+                (timerIndex == -1 || order[i] < order[timerIndex]))
+            {
+                timerIndex = i;
+            }
+        }
+
+        if (timerIndex == -1)
+        {
+            return null;
+        }
+        return removeAt(timerIndex);
+    }
+
+    // Arrivals to one entity are scheduled in increasing time order, so
+    // the latest one is also the one EventListImpl finds last in its vector
+    public double getLastPacketTime(int entityTo)
+    {
+        double time = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if ((heap[i].getType() == NetworkSimulator.FROMLAYER3) &&
+                (heap[i].getEntity() == entityTo) &&
+                (heap[i].getTime() > time))
+            {
+                time = heap[i].getTime();
+            }
+        }
+
+        return time;
+    }
+
+    private Event removeAt(int index)
+    {
+        Event removed = heap[index];
+        size--;
+        if (index != size)
+        {
+            heap[index] = heap[size];
+            order[index] = order[size];
+            heap[size] = null;
+            if (index > 0 && less(index, (index - 1) / 2))
+            {
+                siftUp(index);
+            }
+            else
+            {
+                siftDown(index);
+            }
+        }
+        else
+        {
+            heap[size] = null;
+        }
+        return removed;
+    }
+
+    private boolean less(int i, int j)
+    {
+        double ti = heap[i].getTime();
+        double tj = heap[j].getTime();
+        return ti < tj || (ti == tj && order[i] < order[j]);
+    }
+
+    private void siftUp(int index)
+    {
+        while (index > 0)
+        {
+            int parent = (index - 1) / 2;
+            if (!less(index, parent))
+            {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index)
+    {
+        while (true)
+        {
+            int left = 2 * index + 1;
+            if (left >= size)
+            {
+                break;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && less(right, left))
+            {
+                smallest = right;
+            }
+            if (!less(smallest, index))
+            {
+                break;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j)
+    {
+        Event e = heap[i];
+        heap[i] = heap[j];
+        heap[j] = e;
+        long o = order[i];
+        order[i] = order[j];
+        order[j] = o;
+    }
+
+    private void grow()
+    {
+        int capacity = heap.length * 2;
+        heap = Arrays.copyOf(heap, capacity);
+        order = Arrays.copyOf(order, capacity);
+    }
+}
@@ -0,0 +1,15 @@
+// Decides when a packet put on a link arrives at the other end.  Like
+// ChannelModel, each direction has a model of its own, chosen at startup
+// with -Dlink (both directions), -Dlink.ab or -Dlink.ba, as one of
+//
+//     uniform              1 to 10 time units after the last packet on
+//                          the link (the default)
+//     reorder[:p,d[,exp]]  ReorderLink, uniform with a fraction p of the
+//                          packets held back by up to d
+public interface LinkModel
+{
+    // Arrival time of a packet put on the link at now.  lastArrival is
+    // the latest arrival still scheduled at the other end, 0 if none.
+    // Draws from stream 2 of rand only.
+    double arrival(double now, double lastArrival, OSIRandom rand);
+}
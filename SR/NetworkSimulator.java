@@ -26,6 +26,8 @@ public abstract class NetworkSimulator
     private FileWriter outFile;
 
     private OSIRandom rand;
+    private ChannelModel[] channels;    // loss on the link into A and into B
+    private LinkModel[] links;          // delay on the link into A and into B
 
     private int nSim;
     private int nToLayer3;
@@ -55,8 +57,16 @@ public abstract class NetworkSimulator
         corruptProb = corrupt;
         avgMessageDelay = avgDelay;
         traceLevel = trace;
-        eventList = new EventListImpl();
+        eventList = new HeapEventList();
         rand = new OSIRandom(seed);
+        String channel = System.getProperty("channel", "bernoulli");
+        channels = new ChannelModel[2];
+        channels[B] = newChannel(System.getProperty("channel.ab", channel));
+        channels[A] = newChannel(System.getProperty("channel.ba", channel));
+        String link = System.getProperty("link", "uniform");
+        links = new LinkModel[2];
+        links[B] = newLink(System.getProperty("link.ab", link));
+        links[A] = newLink(System.getProperty("link.ba", link));
 	try{
 	    outFile = new FileWriter("OutputFile");
 	}catch (Exception e) {e.printStackTrace();}
@@ -68,6 +78,46 @@ public abstract class NetworkSimulator
         time = 0;
     }
     
+    // Loss model of one link, chosen at startup with -Dchannel,
+    // -Dchannel.ab and -Dchannel.ba (see ChannelModel)
+    private ChannelModel newChannel(String spec)
+    {
+        int colon = spec.indexOf(':');
+        String kind = colon < 0 ? spec : spec.substring(0, colon);
+        String args = colon < 0 ? null : spec.substring(colon + 1);
+        switch (kind)
+        {
+            case "gilbert":
+                return GilbertElliottChannel.parse(args, lossProb);
+            case "bernoulli":
+                return new BernoulliChannel(lossProb);
+            default:
+                System.out.println("Unknown channel model \"" + spec +
+                                   "\", using bernoulli");
+                return new BernoulliChannel(lossProb);
+        }
+    }
+
+    // Delay model of one link, chosen at startup with -Dlink, -Dlink.ab
+    // and -Dlink.ba (see LinkModel)
+    private LinkModel newLink(String spec)
+    {
+        int colon = spec.indexOf(':');
+        String kind = colon < 0 ? spec : spec.substring(0, colon);
+        String args = colon < 0 ? null : spec.substring(colon + 1);
+        switch (kind)
+        {
+            case "reorder":
+                return ReorderLink.parse(args);
+            case "uniform":
+                return new UniformLink();
+            default:
+                System.out.println("Unknown link model \"" + spec +
+                                   "\", using uniform");
+                return new UniformLink();
+        }
+    }
+
     public void runSimulator()
     {
         Event next;
@@ -167,6 +217,14 @@ public abstract class NetworkSimulator
         }
         System.out.println("Simulator terminated at time "+getTime());
         Simulation_done();
+        for (int entity = A; entity <= B; entity++)
+        {
+            if (!(links[entity] instanceof UniformLink))
+            {
+                System.out.println("Link " + (entity == B ? "A to B" : "B to A") +
+                                   ": " + links[entity]);
+            }
+        }
 	try{
 	    outFile.flush();
 	    outFile.close();
@@ -269,7 +327,7 @@ public abstract class NetworkSimulator
         }
 
         // Simulate losses
-        if (rand.nextDouble(1) < lossProb)
+        if (channels[destination].lost(rand))
         {
             nLost++;
             
@@ -281,17 +339,10 @@ public abstract class NetworkSimulator
             return;
         }
         
-        // Decide when the packet will arrive.  Since the medium cannot
-        // reorder, the packet will arrive 1 to 10 time units after the
-        // last packet sent by this sender
-        arrivalTime = eventList.getLastPacketTime(destination);
-        
-        if (arrivalTime <= 0.0)
-        {
-            arrivalTime = time;
-        }
-        
-        arrivalTime = arrivalTime + 1 + (rand.nextDouble(2) * 9);
+        // Decide when the packet will arrive.  Only a reordering link
+        // lets it overtake packets sent before
+        arrivalTime = links[destination].arrival(time,
+                eventList.getLastPacketTime(destination), rand);
 
         // Simulate corruption
         if (rand.nextDouble(3) < corruptProb)
@@ -0,0 +1,67 @@
+// UniformLink that reorders.  A packet arrives 1 to 10 time units after
+// the later of now and the last packet that was not displaced.  With
+// probability p it is displaced: held back an extra time, uniform on
+// [0, d], or exponential with mean d with ",exp", and the packets sent
+// after it do not wait for it.  "reorder" on its own displaces one packet
+// in 10 by up to 20 time units, the same as the GBN_SACK simulator.
+public class ReorderLink implements LinkModel
+{
+    private double probability;
+    private double displacement;
+    private boolean exponential;
+    private double lastInOrder;     // arrival of the last packet not displaced
+    private long packets;
+    private long displaced;
+
+    public ReorderLink(double probability, double displacement, boolean exponential)
+    {
+        if (probability < 0 || probability > 1 || displacement < 0)
+        {
+            throw new IllegalArgumentException("Reordering needs p in [0, 1] and d >= 0: p " +
+                    probability + ", d " + displacement);
+        }
+        this.probability = probability;
+        this.displacement = displacement;
+        this.exponential = exponential;
+    }
+
+    // Parse the "p,d[,exp]" after "reorder:", null for the defaults
+    public static ReorderLink parse(String args)
+    {
+        if (args == null || args.isEmpty())
+        {
+            return new ReorderLink(0.1, 20, false);
+        }
+        String[] a = args.split(",");
+        if (a.length < 2 || a.length > 3 || (a.length == 3 && !a[2].trim().equals("exp")))
+        {
+            throw new IllegalArgumentException("Expected reorder:p,d or reorder:p,d,exp " +
+                    "but got reorder:" + args);
+        }
+        return new ReorderLink(Double.parseDouble(a[0].trim()), Double.parseDouble(a[1].trim()),
+                a.length == 3);
+    }
+
+    public double arrival(double now, double lastArrival, OSIRandom rand)
+    {
+        double arrivalTime = Math.max(now, lastInOrder) + 1 + (rand.nextDouble(2) * 9);
+        packets++;
+
+        if (rand.nextDouble(2) < probability)
+        {
+            displaced++;
+            double x = rand.nextDouble(2);
+            return arrivalTime + (exponential ?
+                    -displacement * Math.log(1 - Math.min(x, 1 - 1e-9)) : x * displacement);
+        }
+        lastInOrder = arrivalTime;
+        return arrivalTime;
+    }
+
+    public String toString()
+    {
+        return String.format("reorder p %.4f, %s displacement %.2f: %d packets, %d displaced (%.2f%%)",
+                probability, exponential ? "exponential" : "uniform", displacement, packets,
+                displaced, packets == 0 ? 0.0 : 100.0 * displaced / packets);
+    }
+}
@@ -0,0 +1,16 @@
+// The link the simulator always had.  Since the medium cannot reorder,
+// the packet will arrive 1 to 10 time units after the last packet sent.
+public class UniformLink implements LinkModel
+{
+    public double arrival(double now, double lastArrival, OSIRandom rand)
+    {
+        double arrivalTime = lastArrival;
+
+        if (arrivalTime <= 0.0)
+        {
+            arrivalTime = now;
+        }
+
+        return arrivalTime + 1 + (rand.nextDouble(2) * 9);
+    }
+}